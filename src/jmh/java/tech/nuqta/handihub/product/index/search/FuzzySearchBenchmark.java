@@ -0,0 +1,86 @@
+package tech.nuqta.handihub.product.index.search;
+
+import org.openjdk.jmh.annotations.*;
+import tech.nuqta.handihub.product.index.ProductDocument;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures typo-tolerant query latency of {@link FuzzySearchIndex} over a synthetic catalog of one million products.
+ * <p>
+ * Product names combine a craft noun with two words from a vocabulary of about twenty thousand generated words,
+ * and brands are drawn from five thousand generated names, so the trigram postings have a realistic spread.
+ * <p>
+ * Run with {@code gradle jmh -Pjmh.includes=FuzzySearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FuzzySearchBenchmark {
+    private static final String[] CRAFT_WORDS = {
+            "ceramic", "embroidered", "pillow", "vase", "bowl", "handwoven", "basket", "leather", "wallet",
+            "wooden", "spoon", "knitted", "scarf", "silver", "earrings", "carpet", "suzani", "pottery", "candle",
+            "soap", "quilt", "blanket", "tapestry", "lantern", "copper", "teapot", "mosaic", "painted", "tile"
+    };
+    private static final String SYLLABLES = "ba be bi bo bu ka ke ki ko ku la le li lo lu ma me mi mo mu "
+            + "na ne ni no nu ra re ri ro ru sa se si so su ta te ti to tu za ze zi zo zu";
+
+    @Param("1000000")
+    private int products;
+
+    private FuzzySearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new Random(42);
+        var syllables = SYLLABLES.split(" ");
+        var vocabulary = new String[20_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = word(random, syllables, 2 + random.nextInt(3));
+        }
+        var brands = new String[5_000];
+        for (int i = 0; i < brands.length; i++) {
+            brands[i] = word(random, syllables, 2 + random.nextInt(2)) + " " + word(random, syllables, 2);
+        }
+        index = new FuzzySearchIndex();
+        for (long id = 1; id <= products; id++) {
+            var name = CRAFT_WORDS[random.nextInt(CRAFT_WORDS.length)] + " "
+                    + vocabulary[random.nextInt(vocabulary.length)] + " "
+                    + vocabulary[random.nextInt(vocabulary.length)];
+            index.upsert(new ProductDocument(id, name, brands[random.nextInt(brands.length)], "SKU-" + id, null,
+                    1L, BigDecimal.TEN, true, false, false, 0, random.nextInt(50)));
+        }
+    }
+
+    @Benchmark
+    public SearchResult rareWordTypo() {
+        return index.search(List.of("embroiderd"), document -> true, 0, 20);
+    }
+
+    @Benchmark
+    public SearchResult commonWordTypo() {
+        return index.search(List.of("ceramik"), document -> true, 0, 20);
+    }
+
+    @Benchmark
+    public SearchResult twoTermsWithTypos() {
+        return index.search(List.of("handwovn", "baskt"), document -> true, 0, 20);
+    }
+
+    @Benchmark
+    public SearchResult unknownTerm() {
+        return index.search(List.of("qwxyzt"), document -> true, 0, 20);
+    }
+
+    private static String word(Random random, String[] syllables, int length) {
+        var word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package tech.nuqta.handihub.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-request cost of the legacy JWT checks in {@link JwtFilter}, which parsed the token
+ * four times and rebuilt the signing key on each parse, against a single {@link JwtService#verify(String)}.
+ * <p>
+ * Run with {@code gradle jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET_KEY = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private JwtService jwtService;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SECRET_KEY, 86_400_000L, 15_552_000_000L);
+        userDetails = User.withUsername("bench@handihub.uz")
+                .password("password")
+                .authorities("USER", "VENDOR")
+                .build();
+        var claims = new HashMap<String, Object>();
+        claims.put("fullName", "Bench User");
+        token = jwtService.generateToken(claims, userDetails);
+    }
+
+    @Benchmark
+    public boolean legacyMultiParse() {
+        String username = legacyClaims(token).getSubject();
+        boolean valid = username.equals(legacyClaims(token).getSubject())
+                && !legacyClaims(token).getExpiration().before(new Date());
+        boolean refresh = "refresh".equals(legacyClaims(token).get("token_type", String.class));
+        return valid && !refresh && username.equals(userDetails.getUsername());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        VerifiedToken verified = jwtService.verify(token);
+        return !verified.isRefreshToken() && jwtService.isTokenValid(verified, userDetails);
+    }
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -116,16 +116,19 @@ public class AuthenticationService {
      * @return The authentication response with the refreshed access OTP.
      * @throws AppBadRequestException If the refresh OTP is invalid.
      * @throws ItemNotFoundException  If the user corresponding to the username extracted from the refresh OTP is not found.
-     * @throws AppBadRequestException If the refresh OTP has expired.
+     * @throws AppBadRequestException If the refresh OTP has expired or has been revoked.
      */
     public AuthenticationResponse refreshToken(String refreshToken) {
         try {
-            if (!jwtService.isRefreshToken(refreshToken)) {
+            var token = jwtService.verify(refreshToken);
+            if (!token.isRefreshToken()) {
                 throw new AppBadRequestException("Invalid refresh OTP");
             }
-            var username = jwtService.extractUsername(refreshToken);
-            var user = userRepository.findByEmail(username)
+            var user = userRepository.findByEmail(token.subject())
                     .orElseThrow(() -> new ItemNotFoundException("User not found"));
+            if (token.tokenVersion() != null && token.tokenVersion() < user.currentTokenVersion()) {
+                throw new AppBadRequestException("Refresh OTP has been revoked");
+            }
 
             var claims = new HashMap<String, Object>();
             claims.put("fullName", user.getFullName());
@@ -0,0 +1,18 @@
+package tech.nuqta.handihub.cache;
+
+import tech.nuqta.handihub.common.ResponseMessage;
+
+import java.util.List;
+
+/**
+ * The CacheAdminService interface lets administrators inspect and clear the application caches.
+ */
+public interface CacheAdminService {
+    List<CacheStatsDto> getCaches();
+
+    CacheStatsDto getCache(String name);
+
+    ResponseMessage clearCache(String name);
+
+    ResponseMessage clearAll();
+}
@@ -0,0 +1,54 @@
+package tech.nuqta.handihub.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import tech.nuqta.handihub.common.ResponseMessage;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheAdminServiceImpl implements CacheAdminService {
+    private final ManagedCacheManager cacheManager;
+
+    @Override
+    public List<CacheStatsDto> getCaches() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(this::getCache)
+                .toList();
+    }
+
+    @Override
+    public CacheStatsDto getCache(String name) {
+        var cache = nativeCache(name);
+        return CacheStatsDto.of(name, cache.estimatedSize(), cache.stats());
+    }
+
+    @Override
+    public ResponseMessage clearCache(String name) {
+        nativeCache(name).invalidateAll();
+        log.info("Cache {} cleared", name);
+        return new ResponseMessage("Cache cleared successfully");
+    }
+
+    @Override
+    public ResponseMessage clearAll() {
+        cacheManager.getCacheNames().forEach(name -> nativeCache(name).invalidateAll());
+        log.info("All caches cleared");
+        return new ResponseMessage("All caches cleared successfully");
+    }
+
+    private Cache<Object, Object> nativeCache(String name) {
+        if (!cacheManager.getCacheNames().contains(name)
+                || !(cacheManager.getCache(name) instanceof CaffeineCache cache)) {
+            throw new ItemNotFoundException("Cache not found");
+        }
+        return cache.getNativeCache();
+    }
+}
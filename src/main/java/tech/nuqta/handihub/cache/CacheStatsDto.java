@@ -0,0 +1,42 @@
+package tech.nuqta.handihub.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * The CacheStatsDto record is a point-in-time view of a cache's size and statistics since it was created.
+ *
+ * @param name                    the cache name
+ * @param estimatedSize           the approximate number of entries
+ * @param hitCount                the number of lookups that found an entry
+ * @param missCount               the number of lookups that did not find an entry
+ * @param hitRate                 the ratio of hits to lookups, or 1.0 if there were no lookups
+ * @param evictionCount           the number of entries removed by the size or expiry policy
+ * @param loadSuccessCount        the number of successful loads
+ * @param loadFailureCount        the number of failed loads
+ * @param averageLoadPenaltyMillis the average time spent loading an entry, in milliseconds
+ */
+public record CacheStatsDto(
+        String name,
+        long estimatedSize,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount,
+        long loadSuccessCount,
+        long loadFailureCount,
+        double averageLoadPenaltyMillis
+) {
+    public static CacheStatsDto of(String name, long estimatedSize, CacheStats stats) {
+        return new CacheStatsDto(
+                name,
+                estimatedSize,
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.loadSuccessCount(),
+                stats.loadFailureCount(),
+                stats.averageLoadPenalty() / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,94 @@
+package tech.nuqta.handihub.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+/**
+ * The ManagedCacheManager class is the single owner of all caches in the application.
+ * <p>
+ * Every cache, whether used through {@code @Cacheable} or built programmatically with {@link #registerCache(String)}
+ * and {@link #registerLoadingCache(String, CacheLoader)}, is built from its {@link ManagedCacheProperties.Spec},
+ * records statistics and is bound to Micrometer under the {@code cache.*} meters.
+ */
+public class ManagedCacheManager extends CaffeineCacheManager {
+    static final String BEAN_NAME = "cacheManager";
+
+    private final ManagedCacheProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ManagedCacheManager(ManagedCacheProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        setAllowNullValues(false);
+    }
+
+    /**
+     * Builds and registers a cache without a loader.
+     *
+     * @param name the cache name, which must be declared in {@link ManagedCacheProperties}
+     * @return the native cache
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> registerCache(String name) {
+        Cache<Object, Object> cache = monitor(name, builder(name, false).build());
+        registerCustomCache(name, cache);
+        return (Cache<K, V>) cache;
+    }
+
+    /**
+     * Builds and registers a cache that loads missing entries with the given loader.
+     * <p>
+     * Concurrent misses for the same key share a single load, and the spec's {@code refreshAfterWrite} is honoured.
+     *
+     * @param name   the cache name, which must be declared in {@link ManagedCacheProperties}
+     * @param loader the loader of missing entries
+     * @return the native loading cache
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> LoadingCache<K, V> registerLoadingCache(String name, CacheLoader<? super K, V> loader) {
+        LoadingCache<Object, Object> cache = builder(name, true).build((CacheLoader<Object, Object>) loader);
+        registerCustomCache(name, monitor(name, cache));
+        return (LoadingCache<K, V>) cache;
+    }
+
+    @Override
+    protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+        return monitor(name, builder(name, false).build());
+    }
+
+    private Caffeine<Object, Object> builder(String name, boolean loading) {
+        var spec = properties.getSpecs().get(name);
+        if (spec == null) {
+            throw new IllegalStateException("No cache spec declared for cache '" + name + "'");
+        }
+        var builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .recordStats();
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            if (!loading) {
+                throw new IllegalStateException("Cache '" + name + "' declares refresh-after-write but has no loader");
+            }
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        return builder;
+    }
+
+    private Cache<Object, Object> monitor(String name, Cache<Object, Object> cache) {
+        meterRegistry.ifAvailable(registry ->
+                CaffeineCacheMetrics.monitor(registry, cache, name, Tags.of("cache.manager", BEAN_NAME)));
+        return cache;
+    }
+}
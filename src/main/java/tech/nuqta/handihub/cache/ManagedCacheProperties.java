@@ -0,0 +1,36 @@
+package tech.nuqta.handihub.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The ManagedCacheProperties class holds the policy of every cache in the application, keyed by cache name.
+ * <p>
+ * A cache that is not declared here cannot be created: every cache is bounded by design.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "application.cache")
+public class ManagedCacheProperties {
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    /**
+     * The Spec class is the size and expiry policy of a single cache.
+     * <p>
+     * {@code refreshAfterWrite} only applies to caches created with a loader; entries older than it are still served
+     * while a reload runs in the background.
+     */
+    @Getter
+    @Setter
+    public static class Spec {
+        private long maximumSize = 1000;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        private Duration refreshAfterWrite;
+    }
+}
@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.cart.dto.projection;
+
+/**
+ * A product of a cart, as returned by the batched scans of checked out carts.
+ */
+public record CartProductRow(Long cartId, Long productId) {
+}
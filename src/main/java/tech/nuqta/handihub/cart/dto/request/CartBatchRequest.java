@@ -0,0 +1,32 @@
+package tech.nuqta.handihub.cart.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import tech.nuqta.handihub.dto.CartItem;
+
+import java.util.List;
+
+/**
+ * A batch of cart line changes, applied together: removals first, then quantity updates, then additions.
+ *
+ * @param add    the units to add to the lines of the products, creating lines as needed
+ * @param update the new quantities of the lines of the products, creating lines as needed
+ * @param remove the ids of the products whose lines are removed; products not in the cart are ignored
+ */
+public record CartBatchRequest(
+        @Valid
+        @Size(max = 100, message = "At most 100 lines can be added at once")
+        List<@NotNull(message = "Cart item is required") CartItem> add,
+        @Valid
+        @Size(max = 100, message = "At most 100 lines can be updated at once")
+        List<@NotNull(message = "Cart item is required") CartItem> update,
+        @Size(max = 100, message = "At most 100 lines can be removed at once")
+        List<@NotNull(message = "Product ID is required") Long> remove
+) {
+    public CartBatchRequest {
+        add = add == null ? List.of() : add;
+        update = update == null ? List.of() : update;
+        remove = remove == null ? List.of() : remove;
+    }
+}
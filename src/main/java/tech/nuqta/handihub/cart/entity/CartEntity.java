@@ -1,16 +1,30 @@
 package tech.nuqta.handihub.cart.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import tech.nuqta.handihub.common.BaseEntity;
 import tech.nuqta.handihub.enums.CartStatus;
-import tech.nuqta.handihub.product.entity.ProductEntity;
 import tech.nuqta.handihub.user.entity.User;
 
-import java.math.BigDecimal;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
+/**
+ * The CartEntity class is a shopping cart with its lines keyed by product id.
+ * <p>
+ * The lines are an indexed collection, so Hibernate inserts, updates or deletes only the rows of changed lines
+ * instead of rewriting all of them. The total price and quantity are adjusted by each line change in O(1),
+ * in minor units, and can only be changed through the line methods.
+ * <p>
+ * The cart is versioned: a line change also bumps the version, so of two concurrent writers of a cart the second
+ * one fails instead of mixing lines and totals. {@code activeUserId} holds the owner's id while the cart is live
+ * and is unique, so two concurrent first additions can never create two carts for one user.
+ */
 @Getter
 @Setter
 @Entity
@@ -20,16 +34,97 @@ public class CartEntity extends BaseEntity {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
+    @Column(unique = true)
+    private Long activeUserId;
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Setter(AccessLevel.NONE)
+    private long version;
 
-    @ManyToMany
-    @JoinTable(
-            name = "carts_products",
-            joinColumns = @JoinColumn(name = "cart_id"),
-            inverseJoinColumns = @JoinColumn(name = "product_id")
-    )
-    private List<ProductEntity> products;
-    private BigDecimal totalPrice;
-    private Integer totalQuantity;
+    @ElementCollection
+    @CollectionTable(name = "cart_lines", joinColumns = @JoinColumn(name = "cart_id"))
+    @MapKeyColumn(name = "product_id")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<Long, CartLine> lines = new HashMap<>();
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Setter(AccessLevel.NONE)
+    private long totalPriceMinor;
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Setter(AccessLevel.NONE)
+    private int totalQuantity;
     @Enumerated(EnumType.STRING)
     private CartStatus status;
-}
\ No newline at end of file
+
+    public Map<Long, CartLine> getLines() {
+        return Collections.unmodifiableMap(lines);
+    }
+
+    public Optional<CartLine> getLine(Long productId) {
+        return Optional.ofNullable(lines.get(productId));
+    }
+
+    /**
+     * Adds units of a product; the whole line takes the given unit price.
+     *
+     * @param productId      the product id
+     * @param quantity       the number of units to add, positive
+     * @param unitPriceMinor the current unit price, in minor units
+     * @return the updated line
+     */
+    public CartLine addQuantity(Long productId, int quantity, long unitPriceMinor) {
+        var existing = lines.get(productId);
+        int total = existing == null ? quantity : Math.addExact(existing.quantity(), quantity);
+        return setQuantity(productId, total, unitPriceMinor);
+    }
+
+    /**
+     * Sets the number of units of a product; the whole line takes the given unit price.
+     *
+     * @param productId      the product id
+     * @param quantity       the number of units, positive
+     * @param unitPriceMinor the current unit price, in minor units
+     * @return the new line
+     */
+    public CartLine setQuantity(Long productId, int quantity, long unitPriceMinor) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        var line = new CartLine(quantity, unitPriceMinor);
+        var previous = lines.put(productId, line);
+        adjustTotals(previous, line);
+        return line;
+    }
+
+    /**
+     * Removes the line of a product.
+     *
+     * @param productId the product id
+     * @return the removed line, or empty if the cart has no line for the product
+     */
+    public Optional<CartLine> removeLine(Long productId) {
+        var previous = lines.remove(productId);
+        adjustTotals(previous, null);
+        return Optional.ofNullable(previous);
+    }
+
+    public void clearLines() {
+        lines.clear();
+        totalPriceMinor = 0;
+        totalQuantity = 0;
+    }
+
+    private void adjustTotals(CartLine removed, CartLine added) {
+        if (removed != null) {
+            totalPriceMinor = Math.subtractExact(totalPriceMinor, removed.totalMinor());
+            totalQuantity -= removed.quantity();
+        }
+        if (added != null) {
+            totalPriceMinor = Math.addExact(totalPriceMinor, added.totalMinor());
+            totalQuantity = Math.addExact(totalQuantity, added.quantity());
+        }
+    }
+}
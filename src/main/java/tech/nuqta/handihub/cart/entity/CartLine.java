@@ -0,0 +1,22 @@
+package tech.nuqta.handihub.cart.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * A line of a cart: how many units of a product it holds and the unit price when they were added.
+ * <p>
+ * Lines are immutable values; changing one replaces it in {@link CartEntity#getLines()}, which updates only its row.
+ *
+ * @param quantity       the number of units, always positive
+ * @param unitPriceMinor the unit price snapshot, in minor units
+ */
+@Embeddable
+public record CartLine(
+        @Column(nullable = false) int quantity,
+        @Column(nullable = false) long unitPriceMinor
+) {
+    public long totalMinor() {
+        return Math.multiplyExact(unitPriceMinor, quantity);
+    }
+}
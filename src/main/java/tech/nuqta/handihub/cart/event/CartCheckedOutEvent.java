@@ -0,0 +1,18 @@
+package tech.nuqta.handihub.cart.event;
+
+import java.util.List;
+
+/**
+ * The CartCheckedOutEvent record is published when a cart is checked out.
+ * <p>
+ * The products bought together are a co-purchase signal; listeners react to it after the surrounding
+ * transaction commits.
+ *
+ * @param cartId     the id of the checked out cart
+ * @param productIds the ids of the products in the cart
+ */
+public record CartCheckedOutEvent(Long cartId, List<Long> productIds) {
+    public CartCheckedOutEvent {
+        productIds = List.copyOf(productIds);
+    }
+}
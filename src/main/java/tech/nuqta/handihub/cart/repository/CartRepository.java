@@ -1,10 +1,14 @@
 package tech.nuqta.handihub.cart.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.cart.dto.projection.CartProductRow;
 import tech.nuqta.handihub.cart.entity.CartEntity;
 import tech.nuqta.handihub.user.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +16,78 @@ public interface CartRepository extends JpaRepository<CartEntity, Long> {
     @Query("SELECT c FROM CartEntity c WHERE c.user = :user and c.isDeleted = false")
     Optional<CartEntity> findByUserId(User user);
 
-    @Query("SELECT c FROM CartEntity c WHERE c.user = :user and c.status = 'CHECKED_OUT' and c.isDeleted = false")
-    List<CartEntity> findAllCheckedOutCarts(User user);
-}
\ No newline at end of file
+    @Query("SELECT c FROM CartEntity c LEFT JOIN FETCH c.lines " +
+            "WHERE c.activeUserId = :userId and c.status = tech.nuqta.handihub.enums.CartStatus.ACTIVE")
+    Optional<CartEntity> findWithLinesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Releases the active user id held by a user's cart that is no longer active.
+     */
+    @Modifying
+    @Query("UPDATE CartEntity c SET c.activeUserId = null " +
+            "WHERE c.activeUserId = :userId and c.status <> tech.nuqta.handihub.enums.CartStatus.ACTIVE")
+    int releaseInactiveCart(@Param("userId") Long userId);
+
+    @Query("SELECT c FROM CartEntity c LEFT JOIN FETCH c.lines WHERE c.id = :id")
+    Optional<CartEntity> findWithLinesById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT c FROM CartEntity c LEFT JOIN FETCH c.lines WHERE c.id IN :ids")
+    List<CartEntity> findAllWithLinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT max(c.id) FROM CartEntity c")
+    Optional<Long> findMaxId();
+
+    /**
+     * Returns the products of the checked out carts with ids in {@code (afterId, toId]}, ordered by cart id.
+     */
+    @Query("SELECT new tech.nuqta.handihub.cart.dto.projection.CartProductRow(c.id, KEY(l)) " +
+            "FROM CartEntity c JOIN c.lines l " +
+            "WHERE c.id > :afterId and c.id <= :toId " +
+            "and c.status = tech.nuqta.handihub.enums.CartStatus.CHECKOUT and c.isDeleted = false " +
+            "ORDER BY c.id")
+    List<CartProductRow> findCheckedOutCartProducts(@Param("afterId") long afterId, @Param("toId") long toId);
+
+    /**
+     * Marks the newest live cart of every user as the user's active cart, for carts created before the column existed.
+     */
+    @Modifying
+    @Query(value = "UPDATE cart SET active_user_id = user_id WHERE active_user_id IS NULL AND id IN " +
+            "(SELECT max(c.id) FROM cart c WHERE c.is_deleted = false AND c.user_id IS NOT NULL GROUP BY c.user_id) " +
+            "AND NOT EXISTS (SELECT 1 FROM cart a WHERE a.active_user_id = cart.user_id)", nativeQuery = true)
+    int backfillActiveUserIds();
+
+    @Query(value = "SELECT count(*) > 0 FROM information_schema.tables WHERE lower(table_name) = 'carts_products'", nativeQuery = true)
+    boolean legacyCartProductsTableExists();
+
+    /**
+     * Moves the products of the legacy cart join table into cart lines, one line per product with as many units
+     * as it was added and the current product price, and recomputes all cart totals from the lines.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cart_lines (cart_id, product_id, quantity, unit_price_minor) " +
+            "SELECT cp.cart_id, cp.product_id, count(*), round(coalesce(p.price, 0) * 100) " +
+            "FROM carts_products cp JOIN products p ON p.id = cp.product_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM cart_lines l WHERE l.cart_id = cp.cart_id AND l.product_id = cp.product_id) " +
+            "GROUP BY cp.cart_id, cp.product_id, p.price", nativeQuery = true)
+    int migrateLegacyCartProducts();
+
+    @Modifying
+    @Query(value = "UPDATE cart c SET " +
+            "total_price_minor = (SELECT coalesce(sum(l.quantity * l.unit_price_minor), 0) FROM cart_lines l WHERE l.cart_id = c.id), " +
+            "total_quantity = (SELECT coalesce(sum(l.quantity), 0) FROM cart_lines l WHERE l.cart_id = c.id)", nativeQuery = true)
+    int recomputeCartTotals();
+
+    /**
+     * Drops the join table that cart lines replaced; schema updates never drop tables.
+     */
+    @Modifying
+    @Query(value = "DROP TABLE IF EXISTS carts_products", nativeQuery = true)
+    void dropLegacyCartProductsTable();
+
+    /**
+     * Drops the decimal total that {@code totalPriceMinor} replaced; schema updates never drop columns.
+     */
+    @Modifying
+    @Query(value = "ALTER TABLE cart DROP COLUMN IF EXISTS total_price", nativeQuery = true)
+    void dropLegacyTotalPriceColumn();
+}
@@ -1,18 +1,15 @@
 package tech.nuqta.handihub.cart.service;
 
 import org.springframework.security.core.Authentication;
-import tech.nuqta.handihub.dto.CartDto;
+import tech.nuqta.handihub.cart.dto.request.CartBatchRequest;
 import tech.nuqta.handihub.dto.CartItem;
 import tech.nuqta.handihub.common.ResponseMessage;
 
-import java.util.List;
-
 public interface CartService {
     ResponseMessage getCart(Authentication authentication);
     ResponseMessage addOrUpdateCart(CartItem cartItem, Authentication authentication);
+    ResponseMessage updateCartLines(CartBatchRequest request, Authentication authentication);
     ResponseMessage deleteProductFromCart(Long productId, Authentication authentication);
     ResponseMessage checkoutCart(Authentication authentication);
     ResponseMessage clearCart(Authentication authentication);
-    List<CartDto> getCheckedOutCarts(Authentication authentication);
-
 }
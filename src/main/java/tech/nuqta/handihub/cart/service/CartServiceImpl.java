@@ -2,134 +2,168 @@ package tech.nuqta.handihub.cart.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
-import tech.nuqta.handihub.dto.CartDto;
 import tech.nuqta.handihub.dto.CartItem;
-import tech.nuqta.handihub.cart.entity.CartEntity;
-import tech.nuqta.handihub.cart.repository.CartRepository;
+import tech.nuqta.handihub.cart.dto.request.CartBatchRequest;
+import tech.nuqta.handihub.cart.event.CartCheckedOutEvent;
+import tech.nuqta.handihub.cart.store.HotCart;
+import tech.nuqta.handihub.cart.store.HotCartStore;
+import tech.nuqta.handihub.common.Money;
 import tech.nuqta.handihub.common.ResponseMessage;
-import tech.nuqta.handihub.enums.CartStatus;
 import tech.nuqta.handihub.exception.ItemNotFoundException;
 import tech.nuqta.handihub.mapper.CartMapper;
+import tech.nuqta.handihub.mapper.OrderMapper;
 import tech.nuqta.handihub.order.entity.OrderEntity;
+import tech.nuqta.handihub.order.entity.OrderLine;
 import tech.nuqta.handihub.order.service.OrderService;
+import tech.nuqta.handihub.product.entity.ProductEntity;
+import tech.nuqta.handihub.product.event.ProductChangedEvent;
+import tech.nuqta.handihub.product.event.ProductChangedEvent.ChangeType;
+import tech.nuqta.handihub.product.repository.ProductStockRepository;
 import tech.nuqta.handihub.product.repository.ProductsRepository;
+import tech.nuqta.handihub.product.reservation.StockReservations;
+import tech.nuqta.handihub.product.trending.TrendingProducts;
 import tech.nuqta.handihub.user.entity.User;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CartServiceImpl implements CartService {
-    private final CartRepository cartRepository;
+    private final HotCartStore cartStore;
     private final ProductsRepository productsRepository;
     private final OrderService orderService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TrendingProducts trendingProducts;
+    private final StockReservations stockReservations;
+    private final ProductStockRepository productStockRepository;
 
+    /**
+     * Adds units of a product to the cart, once the resulting quantity of the line is held in stock.
+     */
     @Override
     public ResponseMessage addOrUpdateCart(CartItem cartItem, Authentication authentication) {
         var user = (User) authentication.getPrincipal();
-        var cartEntity = retrieveOrCreateCart(user);
-        updateCartDetails(cartEntity, cartItem);
-        cartRepository.save(cartEntity);
-        var cartDto = CartMapper.toCartDto(cartEntity);
+        var product = productsRepository.findById(cartItem.productId())
+                .orElseThrow(() -> new ItemNotFoundException("Product not found"));
+        var cartDto = cartStore.updateOrCreate(user, cart -> {
+            int quantity = lineQuantity(cart, product.getId()) + cartItem.quantity();
+            stockReservations.holdAll(user.getId(), Map.of(product.getId(), quantity), Map.of(product.getId(), product.getQuantity()));
+            cart.addQuantity(product.getId(), cartItem.quantity(), Money.toMinor(product.getPrice()));
+            return CartMapper.toCartDto(cart);
+        });
+        trendingProducts.recordCartAdd(cartItem.productId());
         return new ResponseMessage(cartDto, "Cart created/updated successfully");
     }
 
+    /**
+     * Applies a batch of line changes with a single product lookup. Unknown products reject the whole batch
+     * before any line is changed; the changes are then applied together under the cart's monitor, once the stock
+     * of the resulting lines is held.
+     */
+    @Override
+    public ResponseMessage updateCartLines(CartBatchRequest request, Authentication authentication) {
+        var user = (User) authentication.getPrincipal();
+        var productIds = Stream.concat(request.add().stream(), request.update().stream())
+                .map(CartItem::productId)
+                .collect(Collectors.toCollection(HashSet::new));
+        var products = productsRepository.findAllAvailableByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductEntity::getId, Function.identity()));
+        if (products.size() != productIds.size()) {
+            productIds.removeAll(products.keySet());
+            throw new ItemNotFoundException("Products not found: " + productIds);
+        }
+        var unitPrices = products.values().stream()
+                .collect(Collectors.toMap(ProductEntity::getId, product -> Money.toMinor(product.getPrice())));
+        var stock = products.values().stream()
+                .collect(Collectors.toMap(ProductEntity::getId, product -> product.getQuantity() == null ? 0 : product.getQuantity()));
+        var cartDto = cartStore.updateOrCreate(user, cart -> {
+            var quantities = new LinkedHashMap<Long, Integer>();
+            request.remove().forEach(productId -> quantities.put(productId, 0));
+            request.update().forEach(item -> quantities.put(item.productId(), item.quantity()));
+            request.add().forEach(item -> quantities.put(item.productId(),
+                    quantities.getOrDefault(item.productId(), lineQuantity(cart, item.productId())) + item.quantity()));
+            stockReservations.holdAll(user.getId(), quantities, stock);
+            request.remove().forEach(cart::removeLine);
+            request.update().forEach(item -> cart.setQuantity(item.productId(), item.quantity(), unitPrices.get(item.productId())));
+            request.add().forEach(item -> cart.addQuantity(item.productId(), item.quantity(), unitPrices.get(item.productId())));
+            return CartMapper.toCartDto(cart);
+        });
+        request.add().forEach(item -> trendingProducts.recordCartAdd(item.productId()));
+        return new ResponseMessage(cartDto, "Cart updated successfully");
+    }
+
     @Override
     public ResponseMessage getCart(Authentication authentication) {
         var user = (User) authentication.getPrincipal();
-        var cartEntity = cartRepository.findByUserId(user)
-                .orElseThrow(() -> new ItemNotFoundException("Cart not found"));
-        var cartDto = CartMapper.toCartDto(cartEntity);
+        var cartDto = cartStore.read(user.getId(), cart -> {
+            if (!cart.exists()) {
+                throw new ItemNotFoundException("Cart not found");
+            }
+            return CartMapper.toCartDto(cart);
+        });
         return new ResponseMessage(cartDto, "Cart retrieved successfully");
     }
 
     @Override
     public ResponseMessage deleteProductFromCart(Long productId, Authentication authentication) {
         var user = (User) authentication.getPrincipal();
-        var cartEntity = cartRepository.findByUserId(user)
-                .orElseThrow(() -> new ItemNotFoundException("Cart not found"));
-        var product = productsRepository.findById(productId)
-                .orElseThrow(() -> new ItemNotFoundException("Product not found"));
-        cartEntity.getProducts().removeIf(cartProduct -> cartProduct.getId().equals(productId));
-        cartEntity.setTotalQuantity(cartEntity.getTotalQuantity() - 1);
-        cartEntity.setTotalPrice(cartEntity.getTotalPrice().subtract(product.getPrice()));
-        cartRepository.save(cartEntity);
-        var cartDto = CartMapper.toCartDto(cartEntity);
+        var cartDto = cartStore.update(user, cart -> {
+            cart.removeLine(productId)
+                    .orElseThrow(() -> new ItemNotFoundException("Product is not in the cart"));
+            stockReservations.releaseAll(user.getId(), List.of(productId));
+            return CartMapper.toCartDto(cart);
+        });
         return new ResponseMessage(cartDto, "Product deleted from cart successfully");
     }
 
+    /**
+     * Places an order for the cart. The stock held for its lines is checked again, as holds may have lapsed, and is
+     * released once the order has taken it out of stock.
+     */
     @Override
     public ResponseMessage checkoutCart(Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        CartEntity cartEntity = cartRepository.findByUserId(user)
-                .orElseThrow(() -> new ItemNotFoundException("Cart not found"));
-        if (cartEntity.getProducts().isEmpty()) {
-            throw new ItemNotFoundException("Cart is empty");
-        }
-        OrderEntity order = orderService.createOrderFromCart(cartEntity);
-        // TODO send order confirmation email
-        // TODO Payment gateway integration
-        // TODO Update product quantity
-        // TODO Update cart status
-        // TODO Invoice generation
-
-
-        cartEntity.setStatus(CartStatus.CHECKOUT);
-        cartRepository.save(cartEntity);
-        return new ResponseMessage("Cart checked out successfully");
+        OrderEntity order = cartStore.checkout(user, cart -> {
+            if (cart.getLines().isEmpty()) {
+                throw new ItemNotFoundException("Cart is empty");
+            }
+            var quantities = cart.getLines().entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, line -> line.getValue().quantity()));
+            stockReservations.holdAll(user.getId(), quantities, productStockRepository.findStock(quantities.keySet()));
+            // TODO Payment gateway integration and invoice generation, as outbox handlers
+            return orderService.createOrderFromCart(cart);
+        });
+        var productIds = order.getLines().stream().map(OrderLine::productId).toList();
+        stockReservations.releaseAll(user.getId(), productIds);
+        productIds.forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.STOCK_CHANGED)));
+        eventPublisher.publishEvent(new CartCheckedOutEvent(order.getCartId(), productIds));
+        return new ResponseMessage(OrderMapper.toOrderDto(order), "Cart checked out successfully");
     }
 
     @Override
     public ResponseMessage clearCart(Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        CartEntity cartEntity = cartRepository.findByUserId(user)
-                .orElseThrow(() -> new ItemNotFoundException("Cart not found"));
-        cartEntity.getProducts().clear();
-        cartEntity.setTotalQuantity(0);
-        cartEntity.setTotalPrice(BigDecimal.ZERO);
-        cartEntity.setStatus(CartStatus.ACTIVE);
-        cartRepository.save(cartEntity);
-        return new ResponseMessage("Cart cleared successfully");
-    }
-
-    @Override
-    public List<CartDto> getCheckedOutCarts(Authentication authentication) {
-        User user = (User) authentication.getPrincipal();
-        return CartMapper.toCartDtoList(cartRepository.findAllCheckedOutCarts(user));
-    }
-
-    private CartEntity retrieveOrCreateCart(User user) {
-        return cartRepository.findByUserId(user).orElseGet(() -> {
-            CartEntity newCart = new CartEntity();
-            newCart.setUser(user);
-            newCart.setStatus(CartStatus.ACTIVE);
-            newCart.setProducts(new ArrayList<>());
-            newCart.setTotalPrice(BigDecimal.ZERO);
-            newCart.setTotalQuantity(0);
-            return newCart;
+        cartStore.update(user, cart -> {
+            var productIds = List.copyOf(cart.getLines().keySet());
+            cart.clear();
+            stockReservations.releaseAll(user.getId(), productIds);
+            return null;
         });
+        return new ResponseMessage("Cart cleared successfully");
     }
 
-    private void updateCartDetails(CartEntity cartEntity, CartItem cartItem) {
-        var product = productsRepository.findById(cartItem.productId())
-                .orElseThrow(() -> new ItemNotFoundException("Product not found"));
-        var existingProduct = cartEntity.getProducts().stream()
-                .filter(cartProduct -> cartProduct.getId().equals(cartItem.productId()))
-                .findFirst();
-        if (existingProduct.isPresent()) {
-            cartEntity.setTotalQuantity(cartEntity.getTotalQuantity() + cartItem.quantity());
-            cartEntity.setTotalPrice(cartEntity.getTotalPrice()
-                    .add(product.getPrice().multiply(BigDecimal.valueOf(cartItem.quantity()))));
-        } else {
-            cartEntity.getProducts().add(product);
-            cartEntity.setTotalQuantity(cartEntity.getTotalQuantity() + cartItem.quantity());
-            cartEntity.setTotalPrice(cartEntity.getTotalPrice()
-                    .add(product.getPrice().multiply(BigDecimal.valueOf(cartItem.quantity()))));
-        }
+    private static int lineQuantity(HotCart cart, Long productId) {
+        var line = cart.getLines().get(productId);
+        return line == null ? 0 : line.quantity();
     }
-}
\ No newline at end of file
+}
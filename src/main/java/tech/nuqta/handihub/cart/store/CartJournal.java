@@ -0,0 +1,224 @@
+package tech.nuqta.handihub.cart.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The CartJournal class is an append-only local log of the cart mutations held in memory by the {@link HotCartStore}.
+ * <p>
+ * Every record carries the resulting state of what it changed, a whole line, a clear or a checkout, so replaying the
+ * records in order over the persisted carts restores the in-memory carts after a crash. A checkout is only recorded
+ * once it is persisted and released the cart, so the records of a user up to their last checkout are not replayed;
+ * they belong to that cart. The log is split into
+ * numbered segments of fixed-size records: {@link #roll()} starts a new segment, and segments are deleted once every
+ * mutation they hold has been persisted. A record torn by a crash is ignored on replay.
+ * <p>
+ * A failed append is logged and does not fail the mutation: the cart is still persisted by the next flush,
+ * only its crash safety is lost. Appends are serialized by a lock, not a monitor, as they write to disk from virtual
+ * threads.
+ */
+@Slf4j
+final class CartJournal implements Closeable {
+    private static final String SUFFIX = ".journal";
+    private static final int RECORD_SIZE = 1 + Long.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private long segment;
+    private long written;
+
+    /**
+     * Opens a new segment after the existing ones, which are kept for {@link #replay(Consumer)}.
+     *
+     * @param directory the directory of the segments, created if missing
+     * @param fsync     whether every append is forced to the storage device, not only to the operating system
+     */
+    CartJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            this.segment = segments().stream().mapToLong(CartJournal::indexOf).max().orElse(-1) + 1;
+            this.channel = open(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Records the new state of a line.
+     *
+     * @param quantity the quantity of the line, 0 if it was removed
+     */
+    void appendLine(long userId, long productId, int quantity, long unitPriceMinor) {
+        append(Type.LINE, userId, productId, quantity, unitPriceMinor);
+    }
+
+    void appendClear(long userId) {
+        append(Type.CLEAR, userId, 0, 0, 0);
+    }
+
+    void appendCheckout(long userId) {
+        append(Type.CHECKOUT, userId, 0, 0, 0);
+    }
+
+    /**
+     * Closes the current segment and starts the next one, unless nothing was written to the current one.
+     *
+     * @return the index of the last closed segment; all records appended before this call are in it or before it
+     */
+    long roll() {
+        lock.lock();
+        try {
+            if (written == 0) {
+                return segment - 1;
+            }
+            try {
+                channel.close();
+                channel = open(segment + 1);
+                segment++;
+                written = 0;
+            } catch (IOException e) {
+                log.error("Failed to roll cart journal segment {}", segment, e);
+            }
+            return segment - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the closed segments up to and including the given one.
+     *
+     * @param last the index of the last segment to delete
+     */
+    void deleteUpTo(long last) {
+        try {
+            for (Path path : segments()) {
+                if (indexOf(path) <= last) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete cart journal segments up to {}", last, e);
+        }
+    }
+
+    /**
+     * Reads the records of the segments left by a previous run, oldest first, skipping those of a user up to and
+     * including their last checkout.
+     *
+     * @param consumer the consumer of the records
+     * @return the number of records replayed
+     */
+    int replay(Consumer<Entry> consumer) {
+        var entries = new ArrayList<Entry>();
+        try {
+            for (Path path : segments()) {
+                if (indexOf(path) >= segment) {
+                    continue;
+                }
+                var records = ByteBuffer.wrap(Files.readAllBytes(path));
+                while (records.remaining() >= RECORD_SIZE) {
+                    var type = Type.values()[records.get()];
+                    entries.add(new Entry(type, records.getLong(), records.getLong(), records.getInt(), records.getLong()));
+                }
+                if (records.hasRemaining()) {
+                    log.warn("Ignored a torn record at the end of cart journal segment {}", path.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read cart journal in " + directory, e);
+        }
+        var lastCheckouts = new HashMap<Long, Integer>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).type() == Type.CHECKOUT) {
+                lastCheckouts.put(entries.get(i).userId(), i);
+            }
+        }
+        int count = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            var entry = entries.get(i);
+            if (i > lastCheckouts.getOrDefault(entry.userId(), -1)) {
+                consumer.accept(entry);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(Type type, long userId, long productId, int quantity, long unitPriceMinor) {
+        lock.lock();
+        try {
+            buffer.clear();
+            buffer.put((byte) type.ordinal()).putLong(userId).putLong(productId).putInt(quantity).putLong(unitPriceMinor);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            written += RECORD_SIZE;
+        } catch (IOException e) {
+            log.error("Failed to append to cart journal, the mutation of user {} is not crash safe", userId, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel open(long index) throws IOException {
+        return FileChannel.open(directory.resolve(String.format("%019d%s", index, SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static long indexOf(Path segment) {
+        var name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    enum Type {
+        LINE,
+        CLEAR,
+        CHECKOUT
+    }
+
+    /**
+     * A journal record; {@code productId}, {@code quantity} and {@code unitPriceMinor} are only set for lines.
+     */
+    record Entry(Type type, long userId, long productId, int quantity, long unitPriceMinor) {
+    }
+}
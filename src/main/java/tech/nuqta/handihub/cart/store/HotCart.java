@@ -0,0 +1,255 @@
+package tech.nuqta.handihub.cart.store;
+
+import tech.nuqta.handihub.cart.entity.CartEntity;
+import tech.nuqta.handihub.cart.entity.CartLine;
+import tech.nuqta.handihub.enums.CartStatus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The HotCart class is the in-memory state of one user's cart, held by the {@link HotCartStore}.
+ * <p>
+ * It is only reachable inside a store callback, which holds the cart's lock. Every mutation is applied to an
+ * unmanaged copy of the {@link CartEntity}, bumps the version and is appended to the {@link CartJournal}. The store
+ * persists the cart later and records the version it wrote; the cart is dirty while the two differ. Writes of a cart
+ * hold its write lock, apart from its lock so that mutations do not wait for the database. Both are explicit locks
+ * rather than monitors, so a virtual thread waiting on them does not pin its carrier.
+ * <p>
+ * The mutations not yet persisted are kept as changes, an added quantity rather than the resulting line, so a write
+ * applies them on top of whatever another instance wrote in between instead of overwriting it.
+ */
+public final class HotCart {
+    private final Long userId;
+    private final CartJournal journal;
+    private final AtomicLong persistedVersion = new AtomicLong();
+    private final Deque<Change> changes = new ArrayDeque<>();
+    final ReentrantLock lock = new ReentrantLock();
+    final ReentrantLock writeLock = new ReentrantLock();
+    private volatile long version;
+    private CartEntity cart;
+    private long rowVersion;
+    volatile boolean evicted;
+
+    HotCart(Long userId, CartJournal journal, CartEntity persisted) {
+        this.userId = userId;
+        this.journal = journal;
+        if (persisted != null) {
+            created(persisted);
+        }
+    }
+
+    /**
+     * Returns whether the user has a cart; all other getters and mutations require one.
+     */
+    public boolean exists() {
+        return cart != null;
+    }
+
+    public Long getId() {
+        return cart.getId();
+    }
+
+    public CartStatus getStatus() {
+        return cart.getStatus();
+    }
+
+    public Map<Long, CartLine> getLines() {
+        return cart.getLines();
+    }
+
+    public long getTotalPriceMinor() {
+        return cart.getTotalPriceMinor();
+    }
+
+    public int getTotalQuantity() {
+        return cart.getTotalQuantity();
+    }
+
+    /**
+     * @see CartEntity#addQuantity(Long, int, long)
+     */
+    public CartLine addQuantity(Long productId, int quantity, long unitPriceMinor) {
+        var line = cart.addQuantity(productId, quantity, unitPriceMinor);
+        changed(Change.Type.ADD, productId, quantity, unitPriceMinor);
+        journal.appendLine(userId, productId, line.quantity(), line.unitPriceMinor());
+        return line;
+    }
+
+    /**
+     * @see CartEntity#setQuantity(Long, int, long)
+     */
+    public CartLine setQuantity(Long productId, int quantity, long unitPriceMinor) {
+        var line = cart.setQuantity(productId, quantity, unitPriceMinor);
+        changed(Change.Type.SET, productId, quantity, unitPriceMinor);
+        journal.appendLine(userId, productId, line.quantity(), line.unitPriceMinor());
+        return line;
+    }
+
+    /**
+     * @see CartEntity#removeLine(Long)
+     */
+    public Optional<CartLine> removeLine(Long productId) {
+        var removed = cart.removeLine(productId);
+        if (removed.isPresent()) {
+            changed(Change.Type.REMOVE, productId, 0, 0);
+            journal.appendLine(userId, productId, 0, 0);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all lines.
+     */
+    public void clear() {
+        cart.clearLines();
+        changed(Change.Type.CLEAR, null, 0, 0);
+        journal.appendClear(userId);
+    }
+
+    Long userId() {
+        return userId;
+    }
+
+    void created(CartEntity persisted) {
+        cart = copyOf(persisted.getId(), persisted.getStatus(), persisted.getLines());
+        rowVersion = persisted.getVersion();
+    }
+
+    /**
+     * Forgets the cart after its checkout was persisted, which released it; the next addition creates a new one.
+     */
+    void checkedOut() {
+        cart = null;
+        changes.clear();
+        changed();
+        journal.appendCheckout(userId);
+        persisted(version);
+    }
+
+    /**
+     * Rebuilds the cart from a state written by a write that also carried another instance's changes: the lines it
+     * wrote at the given version, with the later changes applied on top.
+     */
+    void rebase(Long cartId, Map<Long, CartLine> lines, long at) {
+        if (cart == null || !cart.getId().equals(cartId)) {
+            return;
+        }
+        var rebased = copyOf(cartId, cart.getStatus(), lines);
+        for (Change change : changes) {
+            if (change.version() > at) {
+                change.applyTo(rebased);
+            }
+        }
+        cart = rebased;
+    }
+
+    void replay(CartJournal.Entry entry) {
+        switch (entry.type()) {
+            case LINE -> {
+                if (entry.quantity() == 0) {
+                    removeLine(entry.productId());
+                } else {
+                    setQuantity(entry.productId(), entry.quantity(), entry.unitPriceMinor());
+                }
+            }
+            case CLEAR -> clear();
+            case CHECKOUT -> throw new IllegalArgumentException("A checkout is never replayed");
+        }
+    }
+
+    boolean isDirty() {
+        return version != persistedVersion.get();
+    }
+
+    Snapshot snapshot() {
+        prune();
+        return new Snapshot(this, version, cart.getId(), List.copyOf(changes));
+    }
+
+    long persistedVersion() {
+        return persistedVersion.get();
+    }
+
+    void persisted(long persisted) {
+        persistedVersion.accumulateAndGet(persisted, Math::max);
+    }
+
+    /**
+     * Returns the version of the cart's row this instance last read or wrote; only used under the write lock.
+     */
+    long rowVersion() {
+        return rowVersion;
+    }
+
+    void rowVersion(long rowVersion) {
+        this.rowVersion = rowVersion;
+    }
+
+    private void changed() {
+        version++;
+    }
+
+    private void changed(Change.Type type, Long productId, int quantity, long unitPriceMinor) {
+        changed();
+        prune();
+        changes.add(new Change(version, type, productId, quantity, unitPriceMinor));
+    }
+
+    private void prune() {
+        long persisted = persistedVersion.get();
+        while (!changes.isEmpty() && changes.peekFirst().version() <= persisted) {
+            changes.pollFirst();
+        }
+    }
+
+    private static CartEntity copyOf(Long cartId, CartStatus status, Map<Long, CartLine> lines) {
+        var copy = new CartEntity();
+        copy.setId(cartId);
+        copy.setStatus(status);
+        lines.forEach((productId, line) -> copy.setQuantity(productId, line.quantity(), line.unitPriceMinor()));
+        return copy;
+    }
+
+    /**
+     * A mutation of a cart at a version.
+     */
+    record Change(long version, Type type, Long productId, int quantity, long unitPriceMinor) {
+
+        void applyTo(CartEntity entity) {
+            switch (type) {
+                case ADD -> entity.addQuantity(productId, quantity, unitPriceMinor);
+                case SET -> entity.setQuantity(productId, quantity, unitPriceMinor);
+                case REMOVE -> entity.removeLine(productId);
+                case CLEAR -> entity.clearLines();
+            }
+        }
+
+        enum Type {
+            ADD, SET, REMOVE, CLEAR
+        }
+    }
+
+    /**
+     * The changes of a cart up to a version, taken under its lock so they can be written without holding it.
+     */
+    record Snapshot(HotCart cart, long version, Long cartId, List<Change> changes) {
+
+        /**
+         * Applies the changes that are not persisted yet to a managed entity, on top of the state it was loaded with.
+         */
+        void applyTo(CartEntity entity) {
+            long persisted = cart.persistedVersion();
+            for (Change change : changes) {
+                if (change.version() > persisted) {
+                    change.applyTo(entity);
+                }
+            }
+        }
+    }
+}
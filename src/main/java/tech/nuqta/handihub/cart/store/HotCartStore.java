@@ -0,0 +1,509 @@
+package tech.nuqta.handihub.cart.store;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.nuqta.handihub.cart.entity.CartEntity;
+import tech.nuqta.handihub.cart.entity.CartLine;
+import tech.nuqta.handihub.cart.repository.CartRepository;
+import tech.nuqta.handihub.enums.CartStatus;
+import tech.nuqta.handihub.exception.AppConflictException;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+import tech.nuqta.handihub.user.entity.User;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The HotCartStore class keeps the active carts in memory and persists their mutations behind the requests.
+ * <p>
+ * Carts are loaded on first access into a cache bounded by size and idle time; the cache only holds the future of a
+ * load, which runs on a virtual thread of its own. Mutations run under the cart's lock, only change memory and append
+ * to the {@link CartJournal}. A scheduled flush writes all dirty carts in
+ * batches, one transaction each, so many mutations of a cart between two flushes cost a single write of the lines
+ * that changed, and applies the changes rather than the resulting lines, so a write never overwrites another
+ * instance's additions to the same cart. A checkout is persisted synchronously and releases the cart, so the next
+ * addition starts a new one. An evicted cart stays reachable until a flush finds it clean, so eviction never waits
+ * for the database or for the cart's lock. Writes of a cart are serialized by its write lock, and a snapshot is only
+ * written if no newer one was; writes of different carts run in parallel.
+ * <p>
+ * No monitor is held around database work or a wait for a lock: requests run on virtual threads, and a virtual thread
+ * blocked inside {@code synchronized} pins its carrier, so a few slow checkouts could stall all requests.
+ * <p>
+ * After a crash, the journal is replayed once the application is ready, after the startup data migrations. Carts
+ * are not served and the journal is not deleted until the replay is done, so a request arriving before it cannot
+ * be overwritten by an older replayed mutation.
+ * <p>
+ * Creating a cart is written through at once, so every journaled mutation refers to an existing row.
+ * The store assumes that a user's requests are served by a single instance.
+ */
+@Slf4j
+@Component
+public class HotCartStore {
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CartJournal journal;
+    private final AsyncCache<Long, HotCart> carts;
+    private final ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<HotCart> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<Long, HotCart> evictedCarts = new ConcurrentHashMap<>();
+    private final CountDownLatch recovered = new CountDownLatch(1);
+    private final int flushBatchSize;
+    private final int maxWriteAttempts;
+
+    public HotCartStore(CartRepository cartRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${application.cart.store.maximum-size:100000}") long maximumSize,
+                        @Value("${application.cart.store.expire-after-access:PT30M}") Duration expireAfterAccess,
+                        @Value("${application.cart.store.flush-batch-size:500}") int flushBatchSize,
+                        @Value("${application.cart.store.max-write-attempts:3}") int maxWriteAttempts,
+                        @Value("${application.cart.store.journal.directory:data/cart-journal}") Path journalDirectory,
+                        @Value("${application.cart.store.journal.fsync:false}") boolean fsync) {
+        this.cartRepository = cartRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.journal = new CartJournal(journalDirectory, fsync);
+        this.flushBatchSize = flushBatchSize;
+        this.maxWriteAttempts = maxWriteAttempts;
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .evictionListener((Long userId, HotCart cart, RemovalCause cause) -> onEvicted(cart))
+                .buildAsync();
+    }
+
+    /**
+     * Runs a reader on the user's cart.
+     *
+     * @param userId the user id
+     * @param reader the reader, which must check {@link HotCart#exists()}
+     * @return the result of the reader
+     */
+    public <T> T read(Long userId, Function<HotCart, T> reader) {
+        awaitRecovery();
+        return withCart(userId, reader);
+    }
+
+    /**
+     * Runs a mutation on the user's existing cart.
+     *
+     * @param user     the user
+     * @param mutation the mutation
+     * @return the result of the mutation
+     * @throws ItemNotFoundException if the user has no cart
+     */
+    public <T> T update(User user, Function<HotCart, T> mutation) {
+        awaitRecovery();
+        return withCart(user.getId(), cart -> {
+            if (!cart.exists()) {
+                throw new ItemNotFoundException("Cart not found");
+            }
+            return mutate(cart, mutation);
+        });
+    }
+
+    /**
+     * Runs a mutation on the user's cart, creating an active cart first if the user has none.
+     *
+     * @param user     the user
+     * @param mutation the mutation
+     * @return the result of the mutation
+     */
+    public <T> T updateOrCreate(User user, Function<HotCart, T> mutation) {
+        awaitRecovery();
+        return withCart(user.getId(), cart -> {
+            if (!cart.exists()) {
+                cart.created(create(user));
+            }
+            return mutate(cart, mutation);
+        });
+    }
+
+    /**
+     * Persists the user's cart with its pending mutations and checks it out, in one transaction.
+     *
+     * @param user       the user
+     * @param placeOrder the callback run in the transaction on the managed, up to date cart before its status
+     *                   is changed; an exception thrown by it rolls the checkout back
+     * @return the result of the callback
+     * @throws ItemNotFoundException if the user has no cart
+     * @throws AppConflictException  if the cart was already checked out
+     */
+    public <T> T checkout(User user, Function<CartEntity, T> placeOrder) {
+        awaitRecovery();
+        return withCart(user.getId(), cart -> {
+            if (!cart.exists()) {
+                throw new ItemNotFoundException("Cart not found");
+            }
+            if (cart.getStatus() != CartStatus.ACTIVE) {
+                throw new AppConflictException("Cart is already checked out");
+            }
+            var snapshot = cart.snapshot();
+            T checkedOut;
+            cart.writeLock.lock();
+            try {
+                checkedOut = write(() -> {
+                    var entity = cartRepository.findWithLinesById(snapshot.cartId())
+                            .orElseThrow(() -> new ItemNotFoundException("Cart not found"));
+                    if (entity.getStatus() != CartStatus.ACTIVE) {
+                        throw new AppConflictException("Cart is already checked out");
+                    }
+                    snapshot.applyTo(entity);
+                    var result = placeOrder.apply(entity);
+                    entity.setStatus(CartStatus.CHECKOUT);
+                    entity.setActiveUserId(null);
+                    return result;
+                });
+                cart.persisted(snapshot.version());
+            } catch (AppConflictException e) {
+                // checked out by another instance, which released the cart
+                cart.checkedOut();
+                settle(cart);
+                throw e;
+            } finally {
+                cart.writeLock.unlock();
+            }
+            cart.checkedOut();
+            settle(cart);
+            return checkedOut;
+        });
+    }
+
+    /**
+     * Writes all dirty carts, then deletes the journal segments whose mutations are all persisted. Does nothing
+     * until the journal has been replayed.
+     */
+    @Scheduled(fixedDelayString = "${application.cart.store.flush-interval:PT1S}")
+    public void flush() {
+        if (recovered.getCount() > 0) {
+            return;
+        }
+        long closedSegment = journal.roll();
+        var pending = new ArrayList<>(dirty);
+        boolean complete = true;
+        for (int from = 0; from < pending.size(); from += flushBatchSize) {
+            complete &= persist(pending.subList(from, Math.min(from + flushBatchSize, pending.size())));
+        }
+        if (complete) {
+            journal.deleteUpTo(closedSegment);
+        }
+        forgetCleanEvictedCarts();
+    }
+
+    /**
+     * Replays the mutations left in the journal by a previous run, then starts serving carts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int replayed;
+        try {
+            replayed = journal.replay(entry -> withCart(entry.userId(), cart -> {
+                if (cart.exists()) {
+                    mutate(cart, hotCart -> {
+                        hotCart.replay(entry);
+                        return null;
+                    });
+                }
+                return null;
+            }));
+        } finally {
+            recovered.countDown();
+        }
+        if (replayed > 0) {
+            flush();
+            log.info("Recovered {} cart mutations from the journal", replayed);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        flush();
+        journal.close();
+        loader.close();
+    }
+
+    /**
+     * Holds a request until the journal has been replayed, which only happens at startup.
+     */
+    private void awaitRecovery() {
+        try {
+            recovered.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the cart journal to be replayed", e);
+        }
+    }
+
+    private <T> T withCart(Long userId, Function<HotCart, T> action) {
+        while (true) {
+            var cart = cartOf(userId);
+            cart.lock.lock();
+            try {
+                if (!cart.evicted) {
+                    return action.apply(cart);
+                }
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached cart of a user, loading it outside the cache's own locking if it is missing.
+     */
+    private HotCart cartOf(Long userId) {
+        try {
+            return carts.get(userId, (key, executor) -> CompletableFuture.supplyAsync(() -> load(key), loader)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a mutation on a cart whose lock is held. The cart is marked pending before the mutation is journaled,
+     * so a flush that rolls the journal after the append always writes the mutation before deleting its segment.
+     */
+    private <T> T mutate(HotCart cart, Function<HotCart, T> mutation) {
+        dirty.add(cart);
+        try {
+            return mutation.apply(cart);
+        } finally {
+            settle(cart);
+        }
+    }
+
+    /**
+     * Creates the user's cart; if another instance created it first, the unique active user id rejects the insert
+     * and that cart is used instead. A checked out cart that still holds the active user id, from before checkouts
+     * released it, releases it now.
+     */
+    private CartEntity create(User user) {
+        try {
+            return write(() -> {
+                cartRepository.releaseInactiveCart(user.getId());
+                var newCart = new CartEntity();
+                newCart.setUser(user);
+                newCart.setActiveUserId(user.getId());
+                newCart.setStatus(CartStatus.ACTIVE);
+                return cartRepository.save(newCart);
+            });
+        } catch (DataIntegrityViolationException e) {
+            return cartRepository.findWithLinesByUserId(user.getId()).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Revives the user's evicted cart if it is still reachable, otherwise reads it from the database.
+     */
+    private HotCart load(Long userId) {
+        var evicted = evictedCarts.remove(userId);
+        if (evicted != null) {
+            evicted.lock.lock();
+            try {
+                evicted.evicted = false;
+            } finally {
+                evicted.lock.unlock();
+            }
+            return evicted;
+        }
+        return new HotCart(userId, journal, cartRepository.findWithLinesByUserId(userId).orElse(null));
+    }
+
+    /**
+     * Keeps an evicted cart reachable, as a request may still be mutating it; runs inside the cache's maintenance,
+     * so it neither touches the database nor waits for the cart's lock.
+     */
+    private void onEvicted(HotCart cart) {
+        if (cart == null) {
+            return;
+        }
+        cart.evicted = true;
+        evictedCarts.put(cart.userId(), cart);
+    }
+
+    /**
+     * Lets go of the evicted carts that are clean; a busy one is left to the next flush.
+     */
+    private void forgetCleanEvictedCarts() {
+        for (HotCart cart : evictedCarts.values()) {
+            if (cart.lock.tryLock()) {
+                try {
+                    if (cart.evicted && !cart.isDirty()) {
+                        evictedCarts.remove(cart.userId(), cart);
+                    }
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the current state of the given carts in one transaction, or one by one if the batch fails. A cart
+     * whose write lock is held, by a checkout, is left to the next flush.
+     *
+     * @return whether all carts were written
+     */
+    private boolean persist(List<HotCart> batch) {
+        var snapshots = new ArrayList<HotCart.Snapshot>(batch.size());
+        boolean skipped = false;
+        for (HotCart cart : batch) {
+            HotCart.Snapshot snapshot;
+            cart.lock.lock();
+            try {
+                snapshot = cart.isDirty() ? cart.snapshot() : null;
+            } finally {
+                cart.lock.unlock();
+            }
+            if (snapshot == null) {
+                continue;
+            }
+            if (cart.writeLock.tryLock()) {
+                snapshots.add(snapshot);
+            } else {
+                skipped = true;
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return !skipped;
+        }
+        var written = new HashMap<HotCart.Snapshot, CartEntity>();
+        var rebases = new HashMap<HotCart.Snapshot, Map<Long, CartLine>>();
+        try {
+            write(() -> {
+                written.clear();
+                rebases.clear();
+                var stale = snapshots.stream().filter(snapshot -> snapshot.version() > snapshot.cart().persistedVersion()).toList();
+                if (stale.isEmpty()) {
+                    return null;
+                }
+                var entities = cartRepository.findAllWithLinesByIdIn(stale.stream().map(HotCart.Snapshot::cartId).toList())
+                        .stream()
+                        .collect(Collectors.toMap(CartEntity::getId, Function.identity()));
+                for (HotCart.Snapshot snapshot : stale) {
+                    var entity = entities.get(snapshot.cartId());
+                    if (entity == null || entity.getStatus() != CartStatus.ACTIVE) {
+                        log.warn("Cart {} of user {} is no longer active, its pending changes are dropped",
+                                snapshot.cartId(), snapshot.cart().userId());
+                    } else {
+                        boolean foreign = entity.getVersion() != snapshot.cart().rowVersion();
+                        snapshot.applyTo(entity);
+                        written.put(snapshot, entity);
+                        if (foreign) {
+                            rebases.put(snapshot, Map.copyOf(entity.getLines()));
+                        }
+                    }
+                }
+                return null;
+            });
+            written.forEach((snapshot, entity) -> snapshot.cart().rowVersion(entity.getVersion()));
+            for (HotCart.Snapshot snapshot : snapshots) {
+                snapshot.cart().persisted(snapshot.version());
+            }
+        } catch (RuntimeException e) {
+            if (snapshots.size() == 1) {
+                log.error("Failed to persist cart of user {}", snapshots.get(0).cart().userId(), e);
+                return false;
+            }
+            log.warn("Failed to persist a batch of {} carts, retrying one by one", snapshots.size(), e);
+            unlock(snapshots);
+            boolean complete = !skipped;
+            for (HotCart.Snapshot snapshot : snapshots) {
+                complete &= persist(List.of(snapshot.cart()));
+            }
+            return complete;
+        } finally {
+            unlock(snapshots);
+        }
+        rebases.forEach((snapshot, lines) -> {
+            snapshot.cart().lock.lock();
+            try {
+                snapshot.cart().rebase(snapshot.cartId(), lines, snapshot.version());
+            } finally {
+                snapshot.cart().lock.unlock();
+            }
+        });
+        for (HotCart.Snapshot snapshot : snapshots) {
+            settle(snapshot.cart());
+        }
+        return !skipped;
+    }
+
+    private static void unlock(List<HotCart.Snapshot> snapshots) {
+        for (HotCart.Snapshot snapshot : snapshots) {
+            if (snapshot.cart().writeLock.isHeldByCurrentThread()) {
+                snapshot.cart().writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Forgets a cart that became clean; a mutation racing with this puts it back, since it marks the cart dirty
+     * before adding it.
+     */
+    private void settle(HotCart cart) {
+        if (cart.isDirty()) {
+            return;
+        }
+        dirty.remove(cart);
+        if (cart.isDirty()) {
+            dirty.add(cart);
+        }
+    }
+
+    /**
+     * Runs a write in its own transaction; the caller holds the write locks of the carts it writes, and a snapshot is
+     * only written if no newer one was, so a flush racing with a checkout never writes back an older state.
+     * <p>
+     * A write that loses an optimistic lock to another writer of the same cart is retried a bounded number of times,
+     * each after a random pause so two writers do not collide again. Every attempt reloads the carts,
+     * so it applies its changes on top of the winner's; the in-memory cart is then rebased on the result. The attempts
+     * and pauses only run under the carts' explicit locks, so a waiting virtual thread unmounts from its carrier.
+     */
+    private <T> T write(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxWriteAttempts) {
+                    throw e;
+                }
+                log.debug("Cart write conflicted with a concurrent one, retrying (attempt {})", attempt);
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(TimeUnit.MILLISECONDS.toNanos(5L * attempt)));
+            }
+        }
+    }
+}
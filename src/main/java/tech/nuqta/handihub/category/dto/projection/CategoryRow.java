@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.category.dto.projection;
+
+/**
+ * Flat projection of a live {@link tech.nuqta.handihub.category.entity.CategoryEntity} used to assemble the category tree in memory.
+ */
+public record CategoryRow(Long id, String name, String description, Long parentId) {
+}
@@ -0,0 +1,10 @@
+package tech.nuqta.handihub.category.dto.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Summary of the categories table that changes whenever a category is created, modified or removed, used to tell
+ * whether the category tree in memory is still current.
+ */
+public record CategoryStamp(Long count, LocalDateTime lastChangedAt) {
+}
@@ -5,6 +5,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.category.dto.projection.CategoryRow;
+import tech.nuqta.handihub.category.dto.projection.CategoryStamp;
 import tech.nuqta.handihub.category.entity.CategoryEntity;
 
 import java.util.List;
@@ -22,4 +24,12 @@ public interface CategoryRepository extends JpaRepository<CategoryEntity, Long>
     @Transactional
     @Query("SELECT c FROM CategoryEntity c WHERE c.isDeleted = false AND c.id = :id")
     Optional<CategoryEntity> findById(Long id);
+
+    @Query("SELECT new tech.nuqta.handihub.category.dto.projection.CategoryRow(c.id, c.name, c.description, c.parentCategory.id) " +
+            "FROM CategoryEntity c WHERE c.isDeleted = false")
+    List<CategoryRow> findAllLiveRows();
+
+    @Query("SELECT new tech.nuqta.handihub.category.dto.projection.CategoryStamp(count(c), max(coalesce(c.updatedAt, c.createdAt))) " +
+            "FROM CategoryEntity c")
+    CategoryStamp findStamp();
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package tech.nuqta.handihub.category.tree;
+
+import tech.nuqta.handihub.category.dto.projection.CategoryRow;
+import tech.nuqta.handihub.dto.CategoryDto;
+
+import java.util.*;
+
+/**
+ * The CategoryTree class is an immutable snapshot of all live categories.
+ * <p>
+ * It is assembled in memory from a flat list of rows and precomputes, for every category, its DTO with nested
+ * sub categories, its ancestor path from the root and the set of ids in its subtree.
+ * Categories whose parent is deleted are not reachable from a root and are left out.
+ */
+public final class CategoryTree {
+    private static final Comparator<CategoryRow> BY_NAME =
+            Comparator.comparing(CategoryRow::name, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final List<CategoryDto> roots;
+    private final Map<Long, CategoryDto> categoriesById;
+    private final Map<Long, List<Long>> ancestorPaths;
+    private final Map<Long, Set<Long>> subtreeIds;
+
+    private CategoryTree(List<CategoryDto> roots,
+                         Map<Long, CategoryDto> categoriesById,
+                         Map<Long, List<Long>> ancestorPaths,
+                         Map<Long, Set<Long>> subtreeIds) {
+        this.roots = roots;
+        this.categoriesById = categoriesById;
+        this.ancestorPaths = ancestorPaths;
+        this.subtreeIds = subtreeIds;
+    }
+
+    /**
+     * Assembles a tree from the given rows.
+     *
+     * @param rows the live categories, in any order
+     * @return the assembled tree
+     */
+    public static CategoryTree build(List<CategoryRow> rows) {
+        Map<Long, List<CategoryRow>> childrenByParentId = new HashMap<>();
+        List<CategoryRow> rootRows = new ArrayList<>();
+        for (CategoryRow row : rows) {
+            if (row.parentId() == null) {
+                rootRows.add(row);
+            } else {
+                childrenByParentId.computeIfAbsent(row.parentId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+        rootRows.sort(BY_NAME);
+        childrenByParentId.values().forEach(children -> children.sort(BY_NAME));
+
+        var categoriesById = new HashMap<Long, CategoryDto>();
+        var ancestorPaths = new HashMap<Long, List<Long>>();
+        var subtreeIds = new HashMap<Long, Set<Long>>();
+        var roots = new ArrayList<CategoryDto>();
+        for (CategoryRow root : rootRows) {
+            roots.add(assemble(root, List.of(), childrenByParentId, categoriesById, ancestorPaths, subtreeIds));
+        }
+        return new CategoryTree(List.copyOf(roots), Map.copyOf(categoriesById), Map.copyOf(ancestorPaths), Map.copyOf(subtreeIds));
+    }
+
+    private static CategoryDto assemble(CategoryRow row,
+                                        List<Long> parentPath,
+                                        Map<Long, List<CategoryRow>> childrenByParentId,
+                                        Map<Long, CategoryDto> categoriesById,
+                                        Map<Long, List<Long>> ancestorPaths,
+                                        Map<Long, Set<Long>> subtreeIds) {
+        var path = new ArrayList<>(parentPath);
+        path.add(row.id());
+        var subtree = new HashSet<Long>();
+        subtree.add(row.id());
+        var subCategories = new ArrayList<CategoryDto>();
+        for (CategoryRow child : childrenByParentId.getOrDefault(row.id(), List.of())) {
+            subCategories.add(assemble(child, path, childrenByParentId, categoriesById, ancestorPaths, subtreeIds));
+            subtree.addAll(subtreeIds.get(child.id()));
+        }
+        var dto = new CategoryDto(row.id(), row.name(), row.description(), List.copyOf(subCategories));
+        categoriesById.put(row.id(), dto);
+        ancestorPaths.put(row.id(), List.copyOf(path));
+        subtreeIds.put(row.id(), Set.copyOf(subtree));
+        return dto;
+    }
+
+    public List<CategoryDto> roots() {
+        return roots;
+    }
+
+    public Optional<CategoryDto> find(Long id) {
+        return Optional.ofNullable(categoriesById.get(id));
+    }
+
+    public boolean contains(Long id) {
+        return categoriesById.containsKey(id);
+    }
+
+    /**
+     * Returns the ids from the root down to and including the given category.
+     *
+     * @param id the category id
+     * @return the ancestor path, or an empty list if the category is not in the tree
+     */
+    public List<Long> ancestorPath(Long id) {
+        return ancestorPaths.getOrDefault(id, List.of());
+    }
+
+    /**
+     * Returns the ids of the given category and all of its descendants.
+     *
+     * @param id the category id
+     * @return the subtree ids, or an empty set if the category is not in the tree
+     */
+    public Set<Long> subtreeIds(Long id) {
+        return subtreeIds.getOrDefault(id, Set.of());
+    }
+
+    public int size() {
+        return categoriesById.size();
+    }
+}
@@ -0,0 +1,63 @@
+package tech.nuqta.handihub.category.tree;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.category.dto.projection.CategoryStamp;
+import tech.nuqta.handihub.category.repository.CategoryRepository;
+
+import java.util.Objects;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The CategoryTreeHolder class publishes the current {@link CategoryTree} snapshot.
+ * <p>
+ * Readers never touch the database: they get the snapshot through an atomic reference.
+ * Category writes call {@link #rebuild()}, which loads all live categories with a single query and swaps
+ * in a fully built tree, so readers see either the old or the new tree and never an empty cache.
+ * Writes on other instances are picked up by {@link #reconcile()}, which rebuilds the tree when the categories
+ * table changed since the last build.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeHolder {
+    private final CategoryRepository categoryRepository;
+    private final AtomicReference<CategoryTree> snapshot = new AtomicReference<>();
+    private volatile CategoryStamp stamp;
+
+    public CategoryTree get() {
+        var tree = snapshot.get();
+        return tree != null ? tree : initialize();
+    }
+
+    /**
+     * Reloads all live categories and atomically replaces the published snapshot.
+     *
+     * @return the new snapshot
+     */
+    public synchronized CategoryTree rebuild() {
+        stamp = categoryRepository.findStamp();
+        var tree = CategoryTree.build(categoryRepository.findAllLiveRows());
+        snapshot.set(tree);
+        log.info("Category tree rebuilt with {} categories", tree.size());
+        return tree;
+    }
+
+    /**
+     * Rebuilds the tree if a category was created, modified or removed since the last build, on any instance.
+     */
+    @Scheduled(fixedDelayString = "${application.category.tree.reconcile-interval:PT1M}")
+    public void reconcile() {
+        if (snapshot.get() != null && !Objects.equals(stamp, categoryRepository.findStamp())) {
+            rebuild();
+        }
+    }
+
+    private synchronized CategoryTree initialize() {
+        var tree = snapshot.get();
+        return tree != null ? tree : rebuild();
+    }
+}
@@ -0,0 +1,48 @@
+package tech.nuqta.handihub.common;
+
+import tech.nuqta.handihub.exception.AppBadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * The Cursor record is the position of the last row of a keyset page, ordered by {@code (createdAt, id)} descending.
+ * <p>
+ * Clients receive it as an opaque URL-safe string and send it back to fetch the next page.
+ *
+ * @param createdAt the creation time of the last row returned
+ * @param id        the id of the last row returned
+ */
+public record Cursor(LocalDateTime createdAt, Long id) {
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        var raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param value the encoded cursor, may be null or blank for the first page
+     * @return the decoded cursor, or null if no cursor was given
+     * @throws AppBadRequestException if the cursor is malformed
+     */
+    public static Cursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new Cursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new AppBadRequestException("Invalid cursor");
+        }
+    }
+}
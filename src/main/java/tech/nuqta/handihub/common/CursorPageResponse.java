@@ -0,0 +1,69 @@
+package tech.nuqta.handihub.common;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The CursorPageResponse class is a {@link PageResponse} for keyset pagination.
+ * <p>
+ * It carries the cursor of the next page instead of totals: no count query is run,
+ * so {@code totalElements} and {@code totalPages} are always -1. Page sizes are bounded by {@link #MAX_PAGE_SIZE}.
+ */
+@Getter
+@Setter
+public class CursorPageResponse<T> extends PageResponse<T> {
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private String nextCursor;
+    private boolean hasNext;
+
+    public CursorPageResponse(List<T> content, int pageSize, boolean first, String nextCursor) {
+        super(content, -1, pageSize, -1, -1, first, nextCursor == null);
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    /**
+     * Returns the limit to fetch a page with, one row more than its size.
+     *
+     * @param size the requested page size
+     * @throws AppBadRequestException if the size is not between 1 and {@link #MAX_PAGE_SIZE}
+     */
+    public static Pageable limit(int size) {
+        checkSize(size);
+        return PageRequest.ofSize(size + 1);
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only signals that a next page exists.
+     *
+     * @param rows     the fetched rows, at most {@code size + 1}
+     * @param size     the requested page size
+     * @param first    whether this is the first page
+     * @param cursorOf the function returning the cursor of a row
+     * @param mapper   the function mapping the rows of the page to response items
+     * @return the cursor page
+     * @throws AppBadRequestException if the size is not between 1 and {@link #MAX_PAGE_SIZE}
+     */
+    public static <E, T> CursorPageResponse<T> of(List<E> rows, int size, boolean first,
+                                                  Function<E, Cursor> cursorOf,
+                                                  Function<List<E>, List<T>> mapper) {
+        checkSize(size);
+        boolean hasNext = rows.size() > size;
+        var page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPageResponse<>(mapper.apply(page), size, first, nextCursor);
+    }
+
+    private static void checkSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new AppBadRequestException("Size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+}
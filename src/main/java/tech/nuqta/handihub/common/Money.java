@@ -0,0 +1,31 @@
+package tech.nuqta.handihub.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The Money class converts prices between {@link BigDecimal} amounts and long minor units (cents, tiyins).
+ * <p>
+ * Totals kept in minor units are updated with exact integer arithmetic, without allocating or rounding.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to minor units, rounding half up to {@value #SCALE} decimals.
+     *
+     * @param amount the amount
+     * @return the amount in minor units
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMinor(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+}
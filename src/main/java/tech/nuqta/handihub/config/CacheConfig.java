@@ -0,0 +1,23 @@
+package tech.nuqta.handihub.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.nuqta.handihub.cache.ManagedCacheManager;
+import tech.nuqta.handihub.cache.ManagedCacheProperties;
+
+/**
+ * The CacheConfig class registers the {@link ManagedCacheManager} that backs both {@code @Cacheable}
+ * and the programmatic caches, with per-cache policies taken from {@code application.cache.specs}.
+ */
+@Configuration
+@EnableConfigurationProperties(ManagedCacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public ManagedCacheManager cacheManager(ManagedCacheProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ManagedCacheManager(properties, meterRegistry);
+    }
+}
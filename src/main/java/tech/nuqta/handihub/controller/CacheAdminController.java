@@ -0,0 +1,47 @@
+package tech.nuqta.handihub.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import tech.nuqta.handihub.cache.CacheAdminService;
+import tech.nuqta.handihub.cache.CacheStatsDto;
+import tech.nuqta.handihub.common.ResponseMessage;
+
+import java.util.List;
+
+/**
+ * The CacheAdminController class exposes cache statistics and cache clearing to administrators.
+ * <p>
+ * - GET /api/v1/admin/caches: Lists all caches with their size and hit/miss/eviction/load statistics.
+ * - GET /api/v1/admin/caches/{name}: Retrieves the statistics of a single cache.
+ * - DELETE /api/v1/admin/caches/{name}: Clears a single cache.
+ * - DELETE /api/v1/admin/caches: Clears all caches.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/caches")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class CacheAdminController {
+    private final CacheAdminService cacheAdminService;
+
+    @GetMapping
+    public ResponseEntity<List<CacheStatsDto>> getCaches() {
+        return ResponseEntity.ok(cacheAdminService.getCaches());
+    }
+
+    @GetMapping("/{name}")
+    public ResponseEntity<CacheStatsDto> getCache(@PathVariable String name) {
+        return ResponseEntity.ok(cacheAdminService.getCache(name));
+    }
+
+    @DeleteMapping("/{name}")
+    public ResponseEntity<ResponseMessage> clearCache(@PathVariable String name) {
+        return ResponseEntity.ok(cacheAdminService.clearCache(name));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<ResponseMessage> clearAll() {
+        return ResponseEntity.ok(cacheAdminService.clearAll());
+    }
+}
@@ -0,0 +1,75 @@
+package tech.nuqta.handihub.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import tech.nuqta.handihub.cart.dto.request.CartBatchRequest;
+import tech.nuqta.handihub.cart.service.CartService;
+import tech.nuqta.handihub.common.ResponseMessage;
+import tech.nuqta.handihub.dto.CartItem;
+import tech.nuqta.handihub.idempotency.IdempotencyStore;
+import tech.nuqta.handihub.user.entity.User;
+
+/**
+ * The CartController class is responsible for handling HTTP requests related to the cart of the connected user.
+ * <p>
+ * The CartController class has the following API endpoints:
+ * - GET /api/v1/cart/get: Retrieves the cart.
+ * - POST /api/v1/cart/add: Adds units of a product to the cart, creating the cart if needed.
+ * - POST /api/v1/cart/batch: Adds, updates and removes many lines in one request.
+ * - DELETE /api/v1/cart/delete: Removes the line of a product.
+ * - POST /api/v1/cart/checkout: Checks the cart out.
+ * - DELETE /api/v1/cart/clear: Removes all lines.
+ * <p>
+ * Adding, batch changes and checkout accept an optional Idempotency-Key header: a retry with the same key gets the
+ * response of the first request instead of running it again.
+ */
+@RestController
+@RequestMapping("/api/v1/cart")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('USER')")
+public class CartController {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final CartService cartService;
+    private final IdempotencyStore idempotencyStore;
+
+    @GetMapping("/get")
+    public ResponseEntity<ResponseMessage> getCart(Authentication connectedUser) {
+        return ResponseEntity.ok(cartService.getCart(connectedUser));
+    }
+
+    @PostMapping("/add")
+    public ResponseEntity<ResponseMessage> addToCart(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                     @RequestBody @Valid CartItem request, Authentication connectedUser) {
+        return ResponseEntity.ok(idempotencyStore.execute(idempotencyKey, (User) connectedUser.getPrincipal(), "cart/add", request,
+                () -> cartService.addOrUpdateCart(request, connectedUser)));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ResponseMessage> updateCartLines(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                           @RequestBody @Valid CartBatchRequest request, Authentication connectedUser) {
+        return ResponseEntity.ok(idempotencyStore.execute(idempotencyKey, (User) connectedUser.getPrincipal(), "cart/batch", request,
+                () -> cartService.updateCartLines(request, connectedUser)));
+    }
+
+    @DeleteMapping("/delete")
+    public ResponseEntity<ResponseMessage> deleteFromCart(@RequestParam Long productId, Authentication connectedUser) {
+        return ResponseEntity.ok(cartService.deleteProductFromCart(productId, connectedUser));
+    }
+
+    @PostMapping("/checkout")
+    public ResponseEntity<ResponseMessage> checkoutCart(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                        Authentication connectedUser) {
+        return ResponseEntity.ok(idempotencyStore.execute(idempotencyKey, (User) connectedUser.getPrincipal(), "cart/checkout", null,
+                () -> cartService.checkoutCart(connectedUser)));
+    }
+
+    @DeleteMapping("/clear")
+    public ResponseEntity<ResponseMessage> clearCart(Authentication connectedUser) {
+        return ResponseEntity.ok(cartService.clearCart(connectedUser));
+    }
+}
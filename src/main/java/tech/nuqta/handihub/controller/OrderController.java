@@ -0,0 +1,34 @@
+package tech.nuqta.handihub.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tech.nuqta.handihub.common.CursorPageResponse;
+import tech.nuqta.handihub.dto.OrderDto;
+import tech.nuqta.handihub.order.service.OrderService;
+
+/**
+ * The OrderController class is responsible for handling HTTP requests related to the orders of the connected user.
+ * <p>
+ * The OrderController class has the following API endpoints:
+ * - GET /api/v1/order/history: Retrieves a keyset page of the orders, newest first.
+ */
+@RestController
+@RequestMapping("/api/v1/order")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('USER')")
+public class OrderController {
+    private final OrderService orderService;
+
+    @GetMapping("/history")
+    public ResponseEntity<CursorPageResponse<OrderDto>> getOrderHistory(@RequestParam(required = false) String cursor,
+                                                                        @RequestParam(defaultValue = "20") int size,
+                                                                        Authentication connectedUser) {
+        return ResponseEntity.ok(orderService.scrollOrderHistory(cursor, size, connectedUser));
+    }
+}
@@ -9,13 +9,29 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.file.ImageUploadService;
+import tech.nuqta.handihub.dto.FacetedProductsDto;
 import tech.nuqta.handihub.dto.ProductDTO;
+import tech.nuqta.handihub.dto.ProductSearchHitDto;
+import tech.nuqta.handihub.dto.ProductSummaryDto;
+import tech.nuqta.handihub.dto.SuggestionDto;
+import tech.nuqta.handihub.dto.TrendingProductDto;
 import tech.nuqta.handihub.product.dto.request.ProductCreateRequest;
 import tech.nuqta.handihub.product.dto.request.ProductUpdateRequest;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+import tech.nuqta.handihub.product.index.ProductSearchFilter;
+import tech.nuqta.handihub.product.index.facet.FacetQuery;
+import tech.nuqta.handihub.product.index.facet.PriceBand;
 import tech.nuqta.handihub.product.service.ProductsService;
+import tech.nuqta.handihub.product.trending.TrendingWindow;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/products")
@@ -69,4 +85,62 @@ public class ProductController {
                                                                 @RequestParam(defaultValue = "20") int size) {
         return ResponseEntity.ok(productsService.getProducts(page, size));
     }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<ProductDTO>> scrollProducts(@RequestParam(required = false) String cursor,
+                                                                         @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productsService.scrollProducts(cursor, size));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<ProductSearchHitDto>> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Boolean handmade,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        var filter = new ProductSearchFilter(categoryId, handmade, featured, minPrice, maxPrice);
+        return ResponseEntity.ok(productsService.searchProducts(query, filter, page, size));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<FacetedProductsDto> filterProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Boolean handmade,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) Boolean madeToOrder,
+            @RequestParam(required = false) Set<String> brand,
+            @RequestParam(required = false) List<String> priceBand,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        var priceBands = priceBand == null ? Set.<PriceBand>of() : priceBand.stream()
+                .map(label -> PriceBand.fromLabel(label)
+                        .orElseThrow(() -> new AppBadRequestException("Unknown price band: " + label)))
+                .collect(Collectors.toSet());
+        var query = new FacetQuery(categoryId, handmade, featured, madeToOrder, brand, priceBands);
+        return ResponseEntity.ok(productsService.filterProducts(query, page, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDto>> suggestProducts(@RequestParam String prefix,
+                                                               @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productsService.suggestProducts(prefix, limit));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingProductDto>> getTrendingProducts(@RequestParam(defaultValue = "hour") String window,
+                                                                        @RequestParam(defaultValue = "20") int size) {
+        var trendingWindow = TrendingWindow.fromName(window)
+                .orElseThrow(() -> new AppBadRequestException("Unknown trending window: " + window));
+        return ResponseEntity.ok(productsService.getTrendingProducts(trendingWindow, size));
+    }
+
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<ProductSummaryDto>> getRelatedProducts(@PathVariable Long id,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productsService.getRelatedProducts(id, limit));
+    }
 }
@@ -6,12 +6,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.rating.RateRequest;
 import tech.nuqta.handihub.dto.RatingDto;
+import tech.nuqta.handihub.dto.RatingHistogramDto;
+import tech.nuqta.handihub.dto.TopRatedProductDto;
 import tech.nuqta.handihub.rating.RatingService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/rating")
 @RequiredArgsConstructor
@@ -24,11 +29,29 @@ public class RatingController {
         return ResponseEntity.ok(ratingService.rateProduct(request, connectedUser));
     }
 
+    @DeleteMapping("/delete")
+    @PreAuthorize("hasAnyAuthority('USER', 'ADMIN')")
+    public ResponseEntity<ResponseMessage> deleteRating(@RequestParam Long id, Authentication connectedUser) {
+        return ResponseEntity.ok(ratingService.deleteRating(id, connectedUser));
+    }
+
     @GetMapping("/{productId}/rating")
     public ResponseEntity<Double> getAverageRating(@PathVariable Long productId) {
         return ResponseEntity.ok(ratingService.getAverageRating(productId));
     }
 
+    @GetMapping("/{productId}/histogram")
+    public ResponseEntity<RatingHistogramDto> getRatingHistogram(@PathVariable Long productId) {
+        return ResponseEntity.ok(ratingService.getRatingHistogram(productId));
+    }
+
+    @GetMapping("/top-rated")
+    public ResponseEntity<List<TopRatedProductDto>> getTopRated(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(ratingService.getTopRated(categoryId, size));
+    }
+
     @GetMapping("/get-all")
     public ResponseEntity<PageResponse<RatingDto>> getRatings(
             @RequestParam Long productId,
@@ -37,4 +60,12 @@ public class RatingController {
         return ResponseEntity.ok(ratingService.getAllProductRatings(productId, page, size));
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<RatingDto>> scrollRatings(
+            @RequestParam Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ratingService.scrollProductRatings(productId, cursor, size));
+    }
+
 }
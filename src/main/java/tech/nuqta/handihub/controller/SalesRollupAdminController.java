@@ -0,0 +1,33 @@
+package tech.nuqta.handihub.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tech.nuqta.handihub.common.ResponseMessage;
+import tech.nuqta.handihub.sales.service.SalesDashboardService;
+
+import java.time.LocalDate;
+
+/**
+ * The SalesRollupAdminController class lets administrators rebuild the sales rollups.
+ * <p>
+ * - POST /api/v1/admin/sales-rollups/backfill: Starts rebuilding the rollups of a date range from the orders.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/sales-rollups")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ADMIN')")
+public class SalesRollupAdminController {
+    private final SalesDashboardService salesDashboardService;
+
+    @PostMapping("/backfill")
+    public ResponseEntity<ResponseMessage> backfill(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesDashboardService.startBackfill(from, to));
+    }
+}
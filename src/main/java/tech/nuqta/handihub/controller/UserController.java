@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.dto.UserDto;
@@ -50,4 +51,10 @@ public class UserController {
     public ResponseEntity<PageResponse<UserDto>> getUsers(@RequestParam(defaultValue = "1") int page, @RequestParam(defaultValue = "20") int size) {
         return ResponseEntity.ok(userService.getUsers(page, size));
     }
+
+    @GetMapping("/scroll")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<CursorPageResponse<UserDto>> scrollUsers(@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.scrollUsers(cursor, size));
+    }
 }
@@ -0,0 +1,36 @@
+package tech.nuqta.handihub.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tech.nuqta.handihub.common.ResponseMessage;
+import tech.nuqta.handihub.sales.service.SalesDashboardService;
+
+import java.time.LocalDate;
+
+/**
+ * The VendorDashboardController class serves the sales dashboard of the connected vendor.
+ * <p>
+ * - GET /api/v1/vendor/dashboard: Retrieves the revenue, units sold by day and top products between two days.
+ */
+@RestController
+@RequestMapping("/api/v1/vendor/dashboard")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('VENDOR')")
+public class VendorDashboardController {
+    private final SalesDashboardService salesDashboardService;
+
+    @GetMapping
+    public ResponseEntity<ResponseMessage> getDashboard(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(defaultValue = "10") int top,
+                                                        Authentication connectedUser) {
+        return ResponseEntity.ok(salesDashboardService.getDashboard(from, to, top, connectedUser));
+    }
+}
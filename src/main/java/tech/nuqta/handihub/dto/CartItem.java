@@ -1,11 +1,13 @@
 package tech.nuqta.handihub.dto;
 
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 
 public record CartItem(
         @NotNull(message = "Product ID is required")
         Long productId,
         @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be greater than 0")
         Integer quantity
 ) {
 }
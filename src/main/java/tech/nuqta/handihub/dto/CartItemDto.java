@@ -1,7 +1,10 @@
 package tech.nuqta.handihub.dto;
 
+import java.math.BigDecimal;
+
 public record CartItemDto(
         Long productId,
-        Integer quantity
+        Integer quantity,
+        BigDecimal unitPrice
 ) {
 }
@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailySalesDto(LocalDate day, BigDecimal revenue, long unitsSold) {
+}
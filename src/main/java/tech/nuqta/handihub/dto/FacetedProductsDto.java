@@ -0,0 +1,15 @@
+package tech.nuqta.handihub.dto;
+
+import tech.nuqta.handihub.common.PageResponse;
+import tech.nuqta.handihub.product.index.facet.Facet;
+
+import java.util.List;
+
+/**
+ * A page of filtered products together with the counts of every facet.
+ */
+public record FacetedProductsDto(
+        PageResponse<ProductSummaryDto> products,
+        List<Facet> facets
+) {
+}
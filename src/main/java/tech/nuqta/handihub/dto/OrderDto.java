@@ -0,0 +1,17 @@
+package tech.nuqta.handihub.dto;
+
+import tech.nuqta.handihub.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderDto(
+        Long id,
+        LocalDateTime createdAt,
+        OrderStatus status,
+        List<OrderLineDto> lines,
+        BigDecimal totalPrice,
+        int totalQuantity
+) {
+}
@@ -0,0 +1,10 @@
+package tech.nuqta.handihub.dto;
+
+import java.math.BigDecimal;
+
+public record OrderLineDto(
+        Long productId,
+        int quantity,
+        BigDecimal unitPrice
+) {
+}
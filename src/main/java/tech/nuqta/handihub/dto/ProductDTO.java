@@ -28,6 +28,18 @@ public record ProductDTO(
         BigDecimal price,
         Integer quantity,
         Long userId,
-        Long categoryId
+        Long categoryId,
+        double averageRating,
+        int ratingCount,
+        Integer availableQuantity
 ) implements Serializable {
+
+    /**
+     * Returns a copy with the units that are in stock and not held by any cart.
+     */
+    public ProductDTO withAvailableQuantity(Integer availableQuantity) {
+        return new ProductDTO(id, createdAt, updatedAt, createdBy, modifiedBy, name, description, sku, brand, weight,
+                dimensions, isEnabled, isFeatured, isHandmade, madeToOrder, images, price, quantity, userId, categoryId,
+                averageRating, ratingCount, availableQuantity);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package tech.nuqta.handihub.dto;
+
+import java.math.BigDecimal;
+
+public record ProductSalesDto(Long productId, BigDecimal revenue, long unitsSold) {
+}
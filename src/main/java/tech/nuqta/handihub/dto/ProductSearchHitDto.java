@@ -0,0 +1,22 @@
+package tech.nuqta.handihub.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A product returned by a catalog search, with its relevance score.
+ */
+public record ProductSearchHitDto(
+        Long id,
+        String name,
+        String brand,
+        String sku,
+        Long categoryId,
+        BigDecimal price,
+        boolean isHandmade,
+        boolean isFeatured,
+        boolean madeToOrder,
+        double averageRating,
+        int ratingCount,
+        double score
+) {
+}
@@ -0,0 +1,21 @@
+package tech.nuqta.handihub.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A product as served from the in-memory catalog indexes, without description and images.
+ */
+public record ProductSummaryDto(
+        Long id,
+        String name,
+        String brand,
+        String sku,
+        Long categoryId,
+        BigDecimal price,
+        boolean isHandmade,
+        boolean isFeatured,
+        boolean madeToOrder,
+        double averageRating,
+        int ratingCount
+) {
+}
@@ -0,0 +1,19 @@
+package tech.nuqta.handihub.dto;
+
+import java.util.List;
+
+/**
+ * The star distribution of the ratings of a product.
+ *
+ * @param productId     the product id
+ * @param ratingCount   the total number of ratings
+ * @param averageRating the average rating, or 0 if the product has no ratings
+ * @param starCounts    the number of ratings per star value; the first element counts one-star ratings
+ */
+public record RatingHistogramDto(
+        Long productId,
+        int ratingCount,
+        double averageRating,
+        List<Integer> starCounts
+) {
+}
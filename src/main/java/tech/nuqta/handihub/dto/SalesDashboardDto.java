@@ -0,0 +1,18 @@
+package tech.nuqta.handihub.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The sales of a vendor over a date range: totals, one entry per day with sales, and the best selling products.
+ */
+public record SalesDashboardDto(
+        LocalDate from,
+        LocalDate to,
+        BigDecimal revenue,
+        long unitsSold,
+        List<DailySalesDto> daily,
+        List<ProductSalesDto> topProducts
+) {
+}
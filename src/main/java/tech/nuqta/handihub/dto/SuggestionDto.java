@@ -0,0 +1,13 @@
+package tech.nuqta.handihub.dto;
+
+import tech.nuqta.handihub.product.index.suggest.SuggestionType;
+
+/**
+ * A typeahead suggestion.
+ *
+ * @param text       the product name or brand to show
+ * @param type       whether the text is a name or a brand
+ * @param popularity the popularity the suggestions are ordered by
+ */
+public record SuggestionDto(String text, SuggestionType type, long popularity) {
+}
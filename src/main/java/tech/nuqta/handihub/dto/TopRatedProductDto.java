@@ -0,0 +1,21 @@
+package tech.nuqta.handihub.dto;
+
+/**
+ * An entry of a top rated list.
+ *
+ * @param productId     the product id
+ * @param categoryId    the category of the product
+ * @param name          the product name
+ * @param averageRating the plain average rating
+ * @param ratingCount   the number of ratings
+ * @param score         the confidence-adjusted score the list is ordered by
+ */
+public record TopRatedProductDto(
+        Long productId,
+        Long categoryId,
+        String name,
+        double averageRating,
+        int ratingCount,
+        double score
+) {
+}
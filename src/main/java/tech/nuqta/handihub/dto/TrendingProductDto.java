@@ -0,0 +1,22 @@
+package tech.nuqta.handihub.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A trending product, with its weighted count of views and cart additions over the window.
+ */
+public record TrendingProductDto(
+        Long id,
+        String name,
+        String brand,
+        String sku,
+        Long categoryId,
+        BigDecimal price,
+        boolean isHandmade,
+        boolean isFeatured,
+        boolean madeToOrder,
+        double averageRating,
+        int ratingCount,
+        long score
+) {
+}
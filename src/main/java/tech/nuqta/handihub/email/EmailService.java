@@ -12,6 +12,7 @@ import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import tech.nuqta.handihub.enums.EmailTemplateName;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,7 +21,7 @@ import static org.springframework.mail.javamail.MimeMessageHelper.MULTIPART_MODE
 
 /**
  * The EmailService class is responsible for sending emails using the JavaMailSender and SpringTemplateEngine.
- * It provides a method for sending emails asynchronously.
+ * It provides a method for sending emails asynchronously, and one for order confirmations sent by the outbox.
  */
 @Service
 @Slf4j
@@ -55,10 +56,48 @@ public class EmailService {
         properties.put("confirmationUrl", confirmationUrl);
         properties.put("activation_code", activationCode);
 
+        send(mimeMessage, helper, "HandiHub Email Verification <info@nuqta.tech>", to, subject, templateName, properties);
+    }
+
+    /**
+     * Sends the confirmation of a placed order on the calling thread, so that a failure reaches the caller.
+     */
+    public void sendOrderConfirmation(
+            String to,
+            String username,
+            Long orderId,
+            int totalQuantity,
+            BigDecimal totalPrice
+    ) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(
+                mimeMessage,
+                MULTIPART_MODE_MIXED,
+                UTF_8.name()
+        );
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("username", username);
+        properties.put("orderId", orderId);
+        properties.put("totalQuantity", totalQuantity);
+        properties.put("totalPrice", totalPrice);
+
+        send(mimeMessage, helper, "HandiHub Orders <info@nuqta.tech>", to, "Order #" + orderId + " confirmed",
+                EmailTemplateName.ORDER_CONFIRMATION.getName(), properties);
+    }
+
+    private void send(
+            MimeMessage mimeMessage,
+            MimeMessageHelper helper,
+            String from,
+            String to,
+            String subject,
+            String templateName,
+            Map<String, Object> properties
+    ) throws MessagingException {
         Context context = new Context();
         context.setVariables(properties);
 
-        helper.setFrom("HandiHub Email Verification <info@nuqta.tech>");
+        helper.setFrom(from);
         helper.setTo(to);
         helper.setSubject(subject);
 
@@ -0,0 +1,6 @@
+package tech.nuqta.handihub.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    DONE,
+    DEAD
+}
@@ -0,0 +1,9 @@
+package tech.nuqta.handihub.enums;
+
+/**
+ * The side effects run through the outbox; each has one {@code OutboxHandler}.
+ */
+public enum OutboxType {
+    ORDER_CONFIRMATION_EMAIL,
+    SALES_ROLLUP
+}
@@ -0,0 +1,279 @@
+package tech.nuqta.handihub.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.nuqta.handihub.common.ResponseMessage;
+import tech.nuqta.handihub.enums.IdempotencyStatus;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+import tech.nuqta.handihub.exception.AppConflictException;
+import tech.nuqta.handihub.idempotency.entity.IdempotencyRecord;
+import tech.nuqta.handihub.idempotency.repository.IdempotencyRepository;
+import tech.nuqta.handihub.user.entity.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * The IdempotencyStore class runs a request at most once per {@code Idempotency-Key} of a user and replays its
+ * response to the retries.
+ * <p>
+ * Completed responses are kept in two tiers: in memory for the hot window in which clients retry, and in the
+ * database for the whole retention, which also covers retries served by another instance. A retry that arrives while
+ * the first request is still running on this instance waits for its result; on another instance it is rejected as
+ * a conflict. A key is bound to a fingerprint of its request, and reusing it for a different request is rejected.
+ * <p>
+ * A request that fails is not recorded, so the retry runs it again. A key left in progress by an instance that died
+ * is taken over once its lease has run out.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, StoredResponse> responses;
+    private final Map<Key, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Duration lease;
+    private final Duration waitTimeout;
+    private final Duration retention;
+
+    public IdempotencyStore(IdempotencyRepository idempotencyRepository,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper,
+                            @Value("${application.idempotency.maximum-size:100000}") long maximumSize,
+                            @Value("${application.idempotency.hot-window:PT10M}") Duration hotWindow,
+                            @Value("${application.idempotency.lease:PT1M}") Duration lease,
+                            @Value("${application.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                            @Value("${application.idempotency.retention:P1D}") Duration retention) {
+        this.idempotencyRepository = idempotencyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(hotWindow)
+                .build();
+        this.lease = lease;
+        this.waitTimeout = waitTimeout;
+        this.retention = retention;
+    }
+
+    /**
+     * Runs a request once for the key, or replays the response of the run that already completed.
+     *
+     * @param idempotencyKey the key sent by the client, the request simply runs if it is null
+     * @param user           the user the key belongs to
+     * @param operation      the name of the operation, part of the fingerprint
+     * @param request        the body of the request, part of the fingerprint, may be null
+     * @param action         the request
+     * @return the response of the request, or the replayed one
+     */
+    public ResponseMessage execute(String idempotencyKey, User user, String operation, Object request,
+                                   Supplier<ResponseMessage> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AppBadRequestException("Idempotency-Key must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        var key = new Key(user.getId(), idempotencyKey);
+        var requestHash = fingerprint(operation, request);
+        var stored = responses.getIfPresent(key);
+        if (stored != null) {
+            return stored.replay(requestHash);
+        }
+        var pending = new CompletableFuture<StoredResponse>();
+        var running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            return await(running).replay(requestHash);
+        }
+        try {
+            var response = runOnce(key, requestHash, action);
+            pending.complete(response.stored());
+            return response.response();
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Deletes the keys older than the retention, after which a retry runs as a new request.
+     */
+    @Scheduled(fixedDelayString = "${application.idempotency.purge-interval:PT1H}")
+    public void purge() {
+        var deleted = transactionTemplate.execute(status ->
+                idempotencyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Outcome runOnce(Key key, String requestHash, Supplier<ResponseMessage> action) {
+        var stored = responses.getIfPresent(key);
+        if (stored != null) {
+            return new Outcome(stored.replay(requestHash), stored);
+        }
+        var claim = claim(key, requestHash);
+        if (claim.completed() != null) {
+            responses.put(key, claim.completed());
+            return new Outcome(claim.completed().replay(requestHash), claim.completed());
+        }
+        ResponseMessage response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(claim.id());
+            throw e;
+        }
+        JsonNode data = objectMapper.valueToTree(response.getData());
+        stored = new StoredResponse(requestHash, response.getMessage(), data == null ? NullNode.getInstance() : data);
+        complete(claim.id(), stored);
+        responses.put(key, stored);
+        return new Outcome(response, stored);
+    }
+
+    /**
+     * Records the key as in progress on this instance, unless it was completed or is in progress elsewhere.
+     */
+    private Claim claim(Key key, String requestHash) {
+        try {
+            return transactionTemplate.execute(status -> {
+                var now = LocalDateTime.now();
+                var existing = idempotencyRepository.findByUserIdAndIdempotencyKey(key.userId(), key.idempotencyKey());
+                if (existing.isEmpty()) {
+                    var record = new IdempotencyRecord();
+                    record.setUserId(key.userId());
+                    record.setIdempotencyKey(key.idempotencyKey());
+                    record.setRequestHash(requestHash);
+                    record.setStatus(IdempotencyStatus.IN_PROGRESS);
+                    record.setCreatedAt(now);
+                    record.setLockedAt(now);
+                    return new Claim(idempotencyRepository.saveAndFlush(record).getId(), null);
+                }
+                var record = existing.get();
+                if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+                    return new Claim(record.getId(), stored(record));
+                }
+                if (!record.getRequestHash().equals(requestHash)) {
+                    throw reused();
+                }
+                if (idempotencyRepository.takeOver(record.getId(), requestHash, now, now.minus(lease)) == 0) {
+                    throw inProgress();
+                }
+                log.warn("Took over idempotency key {} of user {} left in progress", key.idempotencyKey(), key.userId());
+                return new Claim(record.getId(), null);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw inProgress();
+        }
+    }
+
+    private void complete(Long id, StoredResponse stored) {
+        try {
+            var data = objectMapper.writeValueAsString(stored.data());
+            transactionTemplate.executeWithoutResult(status -> idempotencyRepository.complete(id, stored.message(), data));
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Failed to store the response of idempotency key {}, retries from other instances wait for the lease", id, e);
+        }
+    }
+
+    private void release(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRepository.deleteById(id));
+        } catch (RuntimeException e) {
+            log.error("Failed to release idempotency key {}, retries wait for the lease", id, e);
+        }
+    }
+
+    private StoredResponse stored(IdempotencyRecord record) {
+        try {
+            return new StoredResponse(record.getRequestHash(), record.getResponseMessage(),
+                    objectMapper.readTree(record.getResponseData()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read the stored response of idempotency key " + record.getId(), e);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint " + operation, e);
+        }
+    }
+
+    private static AppConflictException inProgress() {
+        return new AppConflictException("A request with this Idempotency-Key is still in progress");
+    }
+
+    private static AppBadRequestException reused() {
+        return new AppBadRequestException("Idempotency-Key was already used for a different request");
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private record Claim(Long id, StoredResponse completed) {
+    }
+
+    private record Outcome(ResponseMessage response, StoredResponse stored) {
+    }
+
+    private record StoredResponse(String requestHash, String message, JsonNode data) {
+
+        ResponseMessage replay(String requestHash) {
+            if (!this.requestHash.equals(requestHash)) {
+                throw reused();
+            }
+            return new ResponseMessage(data.isNull() ? null : data, message);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package tech.nuqta.handihub.idempotency.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import tech.nuqta.handihub.enums.IdempotencyStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The IdempotencyRecord class is the durable state of an {@code Idempotency-Key} sent by a user.
+ * <p>
+ * It is written as in progress before the request runs, with a fingerprint of the request, and completed with the
+ * response to replay. {@code lockedAt} is when the running instance claimed it; a claim older than the lease is
+ * taken over by a retry.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_user_id_key", columnNames = {"user_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "createdAt"))
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IdempotencyStatus status;
+    private String responseMessage;
+    @Column(columnDefinition = "TEXT")
+    private String responseData;
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+}
@@ -0,0 +1,34 @@
+package tech.nuqta.handihub.idempotency.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.idempotency.entity.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRepository extends JpaRepository<IdempotencyRecord, Long> {
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Claims an in-progress key whose claim is older than the given time, left by an instance that died.
+     *
+     * @return 1 if the key was claimed, 0 if it was completed or claimed again in the meantime
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.lockedAt = :now, r.requestHash = :requestHash " +
+            "WHERE r.id = :id and r.status = tech.nuqta.handihub.enums.IdempotencyStatus.IN_PROGRESS and r.lockedAt < :staleBefore")
+    int takeOver(@Param("id") Long id, @Param("requestHash") String requestHash,
+                 @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = tech.nuqta.handihub.enums.IdempotencyStatus.COMPLETED, " +
+            "r.responseMessage = :message, r.responseData = :data WHERE r.id = :id")
+    int complete(@Param("id") Long id, @Param("message") String message, @Param("data") String data);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
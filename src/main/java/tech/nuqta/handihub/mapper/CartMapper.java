@@ -1,23 +1,32 @@
 package tech.nuqta.handihub.mapper;
 
+import tech.nuqta.handihub.common.Money;
 import tech.nuqta.handihub.dto.CartDto;
 import tech.nuqta.handihub.dto.CartItemDto;
 import tech.nuqta.handihub.cart.entity.CartEntity;
+import tech.nuqta.handihub.cart.entity.CartLine;
+import tech.nuqta.handihub.cart.store.HotCart;
 
-import java.util.List;
+import java.util.Map;
 
 public class CartMapper {
     public static CartDto toCartDto(CartEntity cartEntity) {
-        return new CartDto(
-                cartEntity.getId(),
-                cartEntity.getProducts()
-                        .stream().map(product -> new CartItemDto(product.getId(), product.getQuantity())).toList(),
-                cartEntity.getTotalPrice(),
-                cartEntity.getTotalQuantity()
-        );
+        return toCartDto(cartEntity.getId(), cartEntity.getLines(), cartEntity.getTotalPriceMinor(), cartEntity.getTotalQuantity());
+    }
+
+    public static CartDto toCartDto(HotCart cart) {
+        return toCartDto(cart.getId(), cart.getLines(), cart.getTotalPriceMinor(), cart.getTotalQuantity());
     }
 
-    public static List<CartDto> toCartDtoList(List<CartEntity> allCheckedOutCarts) {
-        return allCheckedOutCarts.stream().map(CartMapper::toCartDto).toList();
+    private static CartDto toCartDto(Long id, Map<Long, CartLine> lines, long totalPriceMinor, int totalQuantity) {
+        return new CartDto(
+                id,
+                lines.entrySet().stream()
+                        .map(line -> new CartItemDto(line.getKey(), line.getValue().quantity(),
+                                Money.fromMinor(line.getValue().unitPriceMinor())))
+                        .toList(),
+                Money.fromMinor(totalPriceMinor),
+                totalQuantity
+        );
     }
 }
@@ -0,0 +1,45 @@
+package tech.nuqta.handihub.mapper;
+
+import tech.nuqta.handihub.common.Money;
+import tech.nuqta.handihub.dto.OrderDto;
+import tech.nuqta.handihub.dto.OrderLineDto;
+import tech.nuqta.handihub.order.dto.projection.OrderLineRow;
+import tech.nuqta.handihub.order.dto.projection.OrderSummaryRow;
+import tech.nuqta.handihub.order.entity.OrderEntity;
+
+import java.util.List;
+import java.util.Map;
+
+public class OrderMapper {
+    public static OrderDto toOrderDto(OrderEntity order) {
+        return new OrderDto(
+                order.getId(),
+                order.getCreatedAt(),
+                order.getStatus(),
+                order.getLines().stream()
+                        .map(line -> new OrderLineDto(line.productId(), line.quantity(), Money.fromMinor(line.unitPriceMinor())))
+                        .toList(),
+                Money.fromMinor(order.getTotalPriceMinor()),
+                order.getTotalQuantity()
+        );
+    }
+
+    public static OrderDto toOrderDto(OrderSummaryRow row, List<OrderLineRow> lines) {
+        return new OrderDto(
+                row.id(),
+                row.createdAt(),
+                row.status(),
+                lines.stream()
+                        .map(line -> new OrderLineDto(line.productId(), line.quantity(), Money.fromMinor(line.unitPriceMinor())))
+                        .toList(),
+                Money.fromMinor(row.totalPriceMinor()),
+                row.totalQuantity()
+        );
+    }
+
+    public static List<OrderDto> toOrderDtoList(List<OrderSummaryRow> rows, Map<Long, List<OrderLineRow>> linesByOrderId) {
+        return rows.stream()
+                .map(row -> toOrderDto(row, linesByOrderId.getOrDefault(row.id(), List.of())))
+                .toList();
+    }
+}
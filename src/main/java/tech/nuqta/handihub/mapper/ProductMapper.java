@@ -1,9 +1,16 @@
 package tech.nuqta.handihub.mapper;
 
 import tech.nuqta.handihub.dto.ProductDTO;
+import tech.nuqta.handihub.dto.ProductSearchHitDto;
+import tech.nuqta.handihub.dto.ProductSummaryDto;
+import tech.nuqta.handihub.dto.TrendingProductDto;
+import tech.nuqta.handihub.product.dto.projection.ProductListingRow;
 import tech.nuqta.handihub.product.entity.ProductEntity;
+import tech.nuqta.handihub.product.index.ProductDocument;
+import tech.nuqta.handihub.product.index.search.SearchHit;
 
 import java.util.List;
+import java.util.Map;
 
 public class ProductMapper {
     public static ProductDTO toDto(ProductEntity entity) {
@@ -23,17 +30,105 @@ public class ProductMapper {
                 entity.isFeatured(),
                 entity.isHandmade(),
                 entity.isMadeToOrder(),
-                entity.getImages(),
+                entity.getImages() == null ? List.of() : List.copyOf(entity.getImages()),
                 entity.getPrice(),
                 entity.getQuantity(),
                 entity.getUser().getId(),
-                entity.getCategory().getId()
+                entity.getCategory().getId(),
+                entity.getAverageRating(),
+                entity.getRatingCount(),
+                entity.getQuantity()
         );
     }
 
+    public static ProductDTO toListingDto(ProductListingRow row, List<String> images) {
+        return new ProductDTO(
+                row.id(),
+                row.createdAt(),
+                row.updatedAt(),
+                row.createdBy(),
+                row.modifiedBy(),
+                row.name(),
+                null,
+                row.sku(),
+                row.brand(),
+                row.weight(),
+                row.dimensions(),
+                row.isEnabled(),
+                row.isFeatured(),
+                row.isHandmade(),
+                row.madeToOrder(),
+                images,
+                row.price(),
+                row.quantity(),
+                row.userId(),
+                row.categoryId(),
+                ProductEntity.averageRating(row.ratingSum(), row.ratingCount()),
+                row.ratingCount(),
+                row.quantity()
+        );
+    }
+
+    public static List<ProductDTO> toListingDtoList(List<ProductListingRow> rows, Map<Long, List<String>> imagesByProductId) {
+        return rows.stream()
+                .map(row -> toListingDto(row, imagesByProductId.getOrDefault(row.id(), List.of())))
+                .toList();
+    }
+
     public static List<ProductDTO> toDtoList(List<ProductEntity> content) {
         return content.stream()
                 .map(ProductMapper::toDto)
                 .toList();
     }
+
+    public static ProductSearchHitDto toSearchHitDto(SearchHit hit) {
+        var document = hit.document();
+        return new ProductSearchHitDto(
+                document.id(),
+                document.name(),
+                document.brand(),
+                document.sku(),
+                document.categoryId(),
+                document.price(),
+                document.isHandmade(),
+                document.isFeatured(),
+                document.madeToOrder(),
+                document.averageRating(),
+                document.ratingCount(),
+                hit.score()
+        );
+    }
+
+    public static ProductSummaryDto toSummaryDto(ProductDocument document) {
+        return new ProductSummaryDto(
+                document.id(),
+                document.name(),
+                document.brand(),
+                document.sku(),
+                document.categoryId(),
+                document.price(),
+                document.isHandmade(),
+                document.isFeatured(),
+                document.madeToOrder(),
+                document.averageRating(),
+                document.ratingCount()
+        );
+    }
+
+    public static TrendingProductDto toTrendingDto(ProductDocument document, long score) {
+        return new TrendingProductDto(
+                document.id(),
+                document.name(),
+                document.brand(),
+                document.sku(),
+                document.categoryId(),
+                document.price(),
+                document.isHandmade(),
+                document.isFeatured(),
+                document.madeToOrder(),
+                document.averageRating(),
+                document.ratingCount(),
+                score
+        );
+    }
 }
@@ -0,0 +1,28 @@
+package tech.nuqta.handihub.mapper;
+
+import tech.nuqta.handihub.common.Money;
+import tech.nuqta.handihub.dto.DailySalesDto;
+import tech.nuqta.handihub.dto.ProductSalesDto;
+import tech.nuqta.handihub.dto.SalesDashboardDto;
+import tech.nuqta.handihub.sales.dto.projection.DailySalesRow;
+import tech.nuqta.handihub.sales.dto.projection.ProductSalesRow;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class SalesMapper {
+    public static SalesDashboardDto toDashboardDto(LocalDate from, LocalDate to, List<DailySalesRow> daily, List<ProductSalesRow> topProducts) {
+        return new SalesDashboardDto(
+                from,
+                to,
+                Money.fromMinor(daily.stream().mapToLong(DailySalesRow::revenueMinor).sum()),
+                daily.stream().mapToLong(DailySalesRow::unitsSold).sum(),
+                daily.stream()
+                        .map(row -> new DailySalesDto(row.day(), Money.fromMinor(row.revenueMinor()), row.unitsSold()))
+                        .toList(),
+                topProducts.stream()
+                        .map(row -> new ProductSalesDto(row.productId(), Money.fromMinor(row.revenueMinor()), row.unitsSold()))
+                        .toList()
+        );
+    }
+}
@@ -0,0 +1,96 @@
+package tech.nuqta.handihub.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.nuqta.handihub.cart.repository.CartRepository;
+import tech.nuqta.handihub.migration.entity.AppliedMigration;
+import tech.nuqta.handihub.migration.repository.AppliedMigrationRepository;
+import tech.nuqta.handihub.product.repository.ProductsRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The OneOffMigrations class runs the data and schema migrations that schema updates cannot do, each once.
+ * <p>
+ * A migration runs in its own transaction together with the row recording it in {@code schema_migrations}, so it
+ * either applies and is recorded or is retried at the next start, and instances starting together run it once.
+ * Migrations that drop tables or columns still mapped by the previous version are contract migrations: they only
+ * run once {@code application.migrations.contract} is enabled, after the rollout has replaced every old instance.
+ */
+@Slf4j
+@Component
+public class OneOffMigrations implements CommandLineRunner {
+    private final AppliedMigrationRepository appliedMigrationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean contract;
+    private final List<Migration> migrations;
+
+    public OneOffMigrations(AppliedMigrationRepository appliedMigrationRepository,
+                            PlatformTransactionManager transactionManager,
+                            ProductsRepository productsRepository,
+                            CartRepository cartRepository,
+                            @Value("${application.migrations.contract:false}") boolean contract) {
+        this.appliedMigrationRepository = appliedMigrationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.contract = contract;
+        this.migrations = List.of(
+                new Migration("008-1-backfill-rating-aggregates", false, () -> {
+                    productsRepository.backfillRatingAggregates();
+                    if (productsRepository.legacyAverageRatingColumnExists()) {
+                        productsRepository.defaultLegacyAverageRatingColumn();
+                    }
+                }),
+                new Migration("008-2-drop-average-rating", true, productsRepository::dropLegacyAverageRatingColumn),
+                new Migration("016-1-migrate-legacy-cart-products", false, () -> {
+                    if (cartRepository.legacyCartProductsTableExists()) {
+                        cartRepository.migrateLegacyCartProducts();
+                        cartRepository.recomputeCartTotals();
+                    }
+                }),
+                new Migration("016-2-backfill-active-user-ids", false, cartRepository::backfillActiveUserIds),
+                new Migration("016-3-drop-carts-products", true, cartRepository::dropLegacyCartProductsTable),
+                new Migration("016-4-drop-cart-total-price", true, cartRepository::dropLegacyTotalPriceColumn)
+        );
+    }
+
+    @Override
+    public void run(String... args) {
+        var applied = appliedMigrationRepository.findAll().stream().map(AppliedMigration::getId).toList();
+        for (Migration migration : migrations) {
+            if (applied.contains(migration.id())) {
+                continue;
+            }
+            if (migration.contract() && !contract) {
+                log.info("Contract migration {} is pending until application.migrations.contract is enabled", migration.id());
+                continue;
+            }
+            apply(migration);
+        }
+    }
+
+    private void apply(Migration migration) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                appliedMigrationRepository.record(migration.id(), LocalDateTime.now());
+                migration.body().run();
+            });
+            log.info("Applied migration {}", migration.id());
+        } catch (DataIntegrityViolationException e) {
+            log.info("Migration {} was applied by another instance", migration.id());
+        }
+    }
+
+    /**
+     * @param id       the id recorded once applied, never changed after release
+     * @param contract whether it removes what the previous version still uses
+     * @param body     the migration, run in the recording transaction
+     */
+    private record Migration(String id, boolean contract, Runnable body) {
+    }
+}
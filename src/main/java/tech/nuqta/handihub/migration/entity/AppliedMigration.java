@@ -0,0 +1,24 @@
+package tech.nuqta.handihub.migration.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * The AppliedMigration class records a one-off migration that has run, so that it never runs again.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "schema_migrations")
+public class AppliedMigration {
+    @Id
+    private String id;
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,20 @@
+package tech.nuqta.handihub.migration.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.migration.entity.AppliedMigration;
+
+import java.time.LocalDateTime;
+
+public interface AppliedMigrationRepository extends JpaRepository<AppliedMigration, String> {
+
+    /**
+     * Records a migration as applied. An instance running the same migration holds the row until it commits, so
+     * this waits for it and then fails with a duplicate key.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO schema_migrations (id, applied_at) VALUES (:id, :appliedAt)", nativeQuery = true)
+    void record(@Param("id") String id, @Param("appliedAt") LocalDateTime appliedAt);
+}
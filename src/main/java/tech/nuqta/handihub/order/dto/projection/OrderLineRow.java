@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.order.dto.projection;
+
+/**
+ * A single line of an order, as returned by the batched line query of an order history page.
+ */
+public record OrderLineRow(Long orderId, Long productId, int quantity, long unitPriceMinor) {
+}
@@ -0,0 +1,11 @@
+package tech.nuqta.handihub.order.dto.projection;
+
+import tech.nuqta.handihub.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of an order shown in the order history, without its lines, user or audit fields.
+ */
+public record OrderSummaryRow(Long id, LocalDateTime createdAt, OrderStatus status, long totalPriceMinor, int totalQuantity) {
+}
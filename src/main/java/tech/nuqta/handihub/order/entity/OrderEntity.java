@@ -1,15 +1,45 @@
 package tech.nuqta.handihub.order.entity;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.Table;
+import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import tech.nuqta.handihub.common.BaseEntity;
+import tech.nuqta.handihub.enums.OrderStatus;
+import tech.nuqta.handihub.user.entity.User;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The OrderEntity class is an order placed by checking out a cart.
+ * <p>
+ * Its lines are a copy of the cart lines at checkout, ordered by product id, and are never changed afterwards.
+ * The order history of a user is read in keyset pages over {@code (user, createdAt, id)}. {@code rolledUp} is set
+ * once the order is counted in the sales rollups.
+ */
 @Getter
 @Setter
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_created_at_id", columnList = "user_id, createdAt, id"))
 public class OrderEntity extends BaseEntity {
-
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+    private Long cartId;
+    @ElementCollection
+    @CollectionTable(name = "order_lines", joinColumns = @JoinColumn(name = "order_id"))
+    @OrderColumn(name = "line_index")
+    private List<OrderLine> lines = new ArrayList<>();
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long totalPriceMinor;
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int totalQuantity;
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+    @Column(nullable = false)
+    @ColumnDefault("false")
+    private boolean rolledUp;
 }
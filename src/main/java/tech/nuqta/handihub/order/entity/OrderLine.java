@@ -0,0 +1,25 @@
+package tech.nuqta.handihub.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+/**
+ * The OrderLine record is one product of an order, with the quantity and unit price it was ordered at.
+ *
+ * @param productId      the product id
+ * @param quantity       the number of units, positive
+ * @param unitPriceMinor the unit price at checkout, in minor units
+ */
+@Embeddable
+public record OrderLine(
+        @Column(nullable = false)
+        Long productId,
+        @Column(nullable = false)
+        int quantity,
+        @Column(nullable = false)
+        long unitPriceMinor
+) {
+    public long totalMinor() {
+        return Math.multiplyExact(unitPriceMinor, quantity);
+    }
+}
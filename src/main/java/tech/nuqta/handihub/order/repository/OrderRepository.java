@@ -0,0 +1,36 @@
+package tech.nuqta.handihub.order.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.order.dto.projection.OrderLineRow;
+import tech.nuqta.handihub.order.dto.projection.OrderSummaryRow;
+import tech.nuqta.handihub.order.entity.OrderEntity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
+    String SUMMARY_SELECT = "SELECT new tech.nuqta.handihub.order.dto.projection.OrderSummaryRow(" +
+            "o.id, o.createdAt, o.status, o.totalPriceMinor, o.totalQuantity) FROM OrderEntity o ";
+
+    @EntityGraph(attributePaths = "user")
+    Optional<OrderEntity> findWithUserById(Long id);
+
+    @Query(SUMMARY_SELECT + "WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryRow> findFirstHistoryPage(@Param("userId") Long userId, Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE o.user.id = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryRow> findHistoryPageAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id, Pageable limit);
+
+    @Query("SELECT new tech.nuqta.handihub.order.dto.projection.OrderLineRow(o.id, l.productId, l.quantity, l.unitPriceMinor) " +
+            "FROM OrderEntity o JOIN o.lines l WHERE o.id IN :ids ORDER BY o.id, index(l)")
+    List<OrderLineRow> findLinesByOrderIds(@Param("ids") Collection<Long> ids);
+}
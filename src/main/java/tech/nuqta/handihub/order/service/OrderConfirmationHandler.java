@@ -0,0 +1,35 @@
+package tech.nuqta.handihub.order.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.common.Money;
+import tech.nuqta.handihub.email.EmailService;
+import tech.nuqta.handihub.enums.OutboxType;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+import tech.nuqta.handihub.order.repository.OrderRepository;
+import tech.nuqta.handihub.outbox.OutboxHandler;
+import tech.nuqta.handihub.outbox.entity.OutboxMessage;
+
+/**
+ * Sends the confirmation email of a placed order, enqueued by {@link OrderServiceImpl#createOrderFromCart}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderConfirmationHandler implements OutboxHandler {
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+
+    @Override
+    public OutboxType type() {
+        return OutboxType.ORDER_CONFIRMATION_EMAIL;
+    }
+
+    @Override
+    public void handle(OutboxMessage message) throws Exception {
+        var order = orderRepository.findWithUserById(message.getAggregateId())
+                .orElseThrow(() -> new ItemNotFoundException("Order not found"));
+        var user = order.getUser();
+        emailService.sendOrderConfirmation(user.getEmail(), user.getFullName(), order.getId(),
+                order.getTotalQuantity(), Money.fromMinor(order.getTotalPriceMinor()));
+    }
+}
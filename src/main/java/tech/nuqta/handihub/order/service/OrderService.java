@@ -1,8 +1,13 @@
 package tech.nuqta.handihub.order.service;
 
+import org.springframework.security.core.Authentication;
 import tech.nuqta.handihub.cart.entity.CartEntity;
+import tech.nuqta.handihub.common.CursorPageResponse;
+import tech.nuqta.handihub.dto.OrderDto;
 import tech.nuqta.handihub.order.entity.OrderEntity;
 
 public interface OrderService {
     OrderEntity createOrderFromCart(CartEntity cartEntity);
+
+    CursorPageResponse<OrderDto> scrollOrderHistory(String cursor, int size, Authentication authentication);
 }
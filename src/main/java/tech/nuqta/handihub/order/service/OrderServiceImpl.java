@@ -1,13 +1,93 @@
 package tech.nuqta.handihub.order.service;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import tech.nuqta.handihub.cart.entity.CartEntity;
+import tech.nuqta.handihub.common.Cursor;
+import tech.nuqta.handihub.common.CursorPageResponse;
+import tech.nuqta.handihub.dto.OrderDto;
+import tech.nuqta.handihub.enums.OrderStatus;
+import tech.nuqta.handihub.enums.OutboxType;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+import tech.nuqta.handihub.mapper.OrderMapper;
+import tech.nuqta.handihub.order.dto.projection.OrderLineRow;
+import tech.nuqta.handihub.order.dto.projection.OrderSummaryRow;
 import tech.nuqta.handihub.order.entity.OrderEntity;
+import tech.nuqta.handihub.order.entity.OrderLine;
+import tech.nuqta.handihub.order.repository.OrderRepository;
+import tech.nuqta.handihub.outbox.service.OutboxService;
+import tech.nuqta.handihub.product.repository.ProductStockRepository;
+import tech.nuqta.handihub.user.entity.User;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
+@RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
+
+    private final OrderRepository orderRepository;
+    private final ProductStockRepository productStockRepository;
+    private final OutboxService outboxService;
+
+    /**
+     * Places an order for the lines of a cart and takes them out of stock, in the caller's transaction.
+     * If any product lacks stock nothing is decremented: the exception rolls the whole checkout back.
+     * The confirmation email and the sales rollup go through the outbox, so they only happen once the order is committed.
+     */
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
     public OrderEntity createOrderFromCart(CartEntity cartEntity) {
-        return null;
+        var lines = cartEntity.getLines().entrySet().stream()
+                .map(line -> new OrderLine(line.getKey(), line.getValue().quantity(), line.getValue().unitPriceMinor()))
+                .sorted(Comparator.comparing(OrderLine::productId))
+                .toList();
+        var outOfStock = productStockRepository.decrementStock(lines);
+        if (!outOfStock.isEmpty()) {
+            throw new AppBadRequestException("Not enough stock for products " + outOfStock);
+        }
+        var order = new OrderEntity();
+        order.setUser(cartEntity.getUser());
+        order.setCartId(cartEntity.getId());
+        order.getLines().addAll(lines);
+        order.setTotalPriceMinor(cartEntity.getTotalPriceMinor());
+        order.setTotalQuantity(cartEntity.getTotalQuantity());
+        order.setStatus(OrderStatus.PLACED);
+        orderRepository.save(order);
+        outboxService.enqueue(OutboxType.ORDER_CONFIRMATION_EMAIL, order.getId());
+        outboxService.enqueue(OutboxType.SALES_ROLLUP, order.getId());
+        return order;
+    }
+
+    /**
+     * Returns a keyset page of the user's orders, newest first, with the lines of the whole page loaded by one
+     * batched query.
+     */
+    @Override
+    public CursorPageResponse<OrderDto> scrollOrderHistory(String cursor, int size, Authentication authentication) {
+        var user = (User) authentication.getPrincipal();
+        var position = Cursor.decode(cursor);
+        var limit = CursorPageResponse.limit(size);
+        var orders = position == null
+                ? orderRepository.findFirstHistoryPage(user.getId(), limit)
+                : orderRepository.findHistoryPageAfter(user.getId(), position.createdAt(), position.id(), limit);
+        return CursorPageResponse.of(orders, size, position == null,
+                order -> new Cursor(order.createdAt(), order.id()),
+                this::toOrderDtos);
+    }
+
+    private List<OrderDto> toOrderDtos(List<OrderSummaryRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        var ids = rows.stream().map(OrderSummaryRow::id).toList();
+        Map<Long, List<OrderLineRow>> linesByOrderId = orderRepository.findLinesByOrderIds(ids).stream()
+                .collect(Collectors.groupingBy(OrderLineRow::orderId));
+        return OrderMapper.toOrderDtoList(rows, linesByOrderId);
     }
 }
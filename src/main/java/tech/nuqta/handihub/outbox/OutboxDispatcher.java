@@ -0,0 +1,242 @@
+package tech.nuqta.handihub.outbox;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.nuqta.handihub.enums.OutboxStatus;
+import tech.nuqta.handihub.enums.OutboxType;
+import tech.nuqta.handihub.outbox.entity.OutboxMessage;
+import tech.nuqta.handihub.outbox.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The OutboxDispatcher class drains the outbox onto a bounded pool of virtual threads.
+ * <p>
+ * Each poll claims due messages in batches, no more than there are free workers so that a claimed message starts
+ * right away, and keeps claiming while batches come back full. A poll never waits for a worker: when all are busy
+ * it returns, so it does not hold up the other scheduled tasks, which may share its thread. A failed message is retried with exponential backoff
+ * and dead-lettered after the last attempt. Instances can drain the same outbox: claims skip locked rows, and a
+ * claim is a lease that another instance takes over once it runs out.
+ * <p>
+ * Every claim counts as an attempt, so a message whose handler hangs or kills its instance is dead-lettered too
+ * once it runs out of attempts. The end of the lease doubles as its token: the outcome of an attempt is only
+ * recorded while the message is still leased until then, never over a later claim of another instance.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<OutboxType, OutboxHandler> handlers = new EnumMap<>(OutboxType.class);
+    private final int batchSize;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    private final Semaphore workerPermits;
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("outbox-", 0).factory());
+    private volatile boolean closed;
+
+    public OutboxDispatcher(OutboxRepository outboxRepository,
+                            PlatformTransactionManager transactionManager,
+                            List<OutboxHandler> handlers,
+                            @Value("${application.outbox.batch-size:100}") int batchSize,
+                            @Value("${application.outbox.concurrency:32}") int concurrency,
+                            @Value("${application.outbox.lease:PT5M}") Duration lease,
+                            @Value("${application.outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${application.outbox.initial-backoff:PT10S}") Duration initialBackoff,
+                            @Value("${application.outbox.max-backoff:PT1H}") Duration maxBackoff,
+                            @Value("${application.outbox.retention:P7D}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        this.workerPermits = new Semaphore(concurrency);
+        for (OutboxHandler handler : handlers) {
+            if (this.handlers.put(handler.type(), handler) != null) {
+                throw new IllegalStateException("More than one outbox handler for " + handler.type());
+            }
+        }
+    }
+
+    /**
+     * Hands due messages to the free workers, until they are all busy or no message is due.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.poll-interval:PT1S}")
+    public void dispatch() {
+        int claimed;
+        int permits;
+        do {
+            permits = acquireWorkers();
+            if (permits == 0) {
+                return;
+            }
+            List<OutboxMessage> messages;
+            try {
+                messages = claim(permits);
+            } catch (RuntimeException e) {
+                workerPermits.release(permits);
+                throw e;
+            }
+            claimed = messages.size();
+            workerPermits.release(permits - claimed);
+            for (OutboxMessage message : messages) {
+                submit(message);
+            }
+        } while (claimed == permits && !closed);
+    }
+
+    /**
+     * Deletes the messages that were handled longer ago than the retention; dead messages are kept.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.purge-interval:PT1H}")
+    public void purge() {
+        var deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteDoneBefore(LocalDateTime.now().minus(retention)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} handled outbox messages", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Outbox workers still running at shutdown, their messages are retried after the lease");
+        }
+    }
+
+    /**
+     * Takes the workers that are free, up to a batch.
+     *
+     * @return the number of workers taken, 0 if all are busy or the dispatcher is closed
+     */
+    private int acquireWorkers() {
+        if (closed) {
+            return 0;
+        }
+        int permits = 0;
+        while (permits < batchSize && workerPermits.tryAcquire()) {
+            permits++;
+        }
+        return permits;
+    }
+
+    /**
+     * Leases due messages that have attempts left, and dead-letters those that used their last attempt without
+     * recording an outcome.
+     *
+     * @return the leased messages, with the attempt and the end of the lease applied
+     */
+    private List<OutboxMessage> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            var now = LocalDateTime.now();
+            var messages = outboxRepository.lockDue(now, limit);
+            var exhausted = messages.stream().filter(message -> message.getAttempts() >= maxAttempts).toList();
+            if (!exhausted.isEmpty()) {
+                outboxRepository.deadLetter(exhausted.stream().map(OutboxMessage::getId).toList(),
+                        "Lease expired on the last attempt");
+                exhausted.forEach(message -> log.error("Outbox message {} {} for {} outlived its lease {} times, dead-lettered",
+                        message.getId(), message.getType(), message.getAggregateId(), message.getAttempts()));
+            }
+            var claimed = messages.stream().filter(message -> message.getAttempts() < maxAttempts).toList();
+            if (!claimed.isEmpty()) {
+                // Truncated so that the lease end read back from the database compares equal
+                var leaseUntil = now.plus(lease).truncatedTo(ChronoUnit.MILLIS);
+                outboxRepository.lease(claimed.stream().map(OutboxMessage::getId).toList(), leaseUntil);
+                claimed.forEach(message -> {
+                    message.setAttempts(message.getAttempts() + 1);
+                    message.setNextAttemptAt(leaseUntil);
+                });
+            }
+            return claimed;
+        });
+    }
+
+    private void submit(OutboxMessage message) {
+        try {
+            workers.execute(() -> {
+                try {
+                    process(message);
+                } finally {
+                    workerPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            workerPermits.release();
+            log.debug("Outbox closed, message {} is retried after the lease", message.getId());
+        }
+    }
+
+    private void process(OutboxMessage message) {
+        try {
+            var handler = handlers.get(message.getType());
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler for " + message.getType());
+            }
+            handler.handle(message);
+            var updated = transactionTemplate.execute(status ->
+                    outboxRepository.markDone(message.getId(), message.getNextAttemptAt(), LocalDateTime.now()));
+            if (updated == null || updated == 0) {
+                log.warn("Outbox message {} handled after its lease ran out, another claim may handle it again", message.getId());
+            }
+        } catch (Exception e) {
+            failed(message, e);
+        }
+    }
+
+    private void failed(OutboxMessage message, Exception error) {
+        int attempts = message.getAttempts();
+        boolean dead = attempts >= maxAttempts;
+        if (dead) {
+            log.error("Outbox message {} {} for {} failed {} times, dead-lettered",
+                    message.getId(), message.getType(), message.getAggregateId(), attempts, error);
+        } else {
+            log.warn("Outbox message {} {} for {} failed, attempt {} of {}: {}",
+                    message.getId(), message.getType(), message.getAggregateId(), attempts, maxAttempts, error.toString());
+        }
+        var nextAttemptAt = LocalDateTime.now().plus(dead ? Duration.ZERO : backoff(attempts));
+        var lastError = String.valueOf(error);
+        try {
+            var updated = transactionTemplate.execute(status -> outboxRepository.markFailed(message.getId(),
+                    message.getNextAttemptAt(), dead ? OutboxStatus.DEAD : OutboxStatus.PENDING, nextAttemptAt,
+                    lastError.length() > MAX_ERROR_LENGTH ? lastError.substring(0, MAX_ERROR_LENGTH) : lastError));
+            if (updated == null || updated == 0) {
+                log.warn("Failure of outbox message {} not recorded, its lease ran out and another claim took over", message.getId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to record the failure of outbox message {}, it is retried after the lease", message.getId(), e);
+        }
+    }
+
+    /**
+     * The delay before the next attempt, doubling from the initial backoff up to the maximum.
+     */
+    private Duration backoff(int attempts) {
+        var backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+}
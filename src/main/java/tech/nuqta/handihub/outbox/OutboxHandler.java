@@ -0,0 +1,19 @@
+package tech.nuqta.handihub.outbox;
+
+import tech.nuqta.handihub.enums.OutboxType;
+import tech.nuqta.handihub.outbox.entity.OutboxMessage;
+
+/**
+ * Runs the side effect of one {@link OutboxType}, outside any transaction.
+ * <p>
+ * Delivery is at least once: a message may be handled again if its instance dies, or its lease runs out, before the
+ * success is recorded, so handlers should be idempotent where the side effect allows it.
+ */
+public interface OutboxHandler {
+    OutboxType type();
+
+    /**
+     * @throws Exception if the side effect failed and should be retried
+     */
+    void handle(OutboxMessage message) throws Exception;
+}
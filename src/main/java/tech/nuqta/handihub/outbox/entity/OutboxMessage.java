@@ -0,0 +1,44 @@
+package tech.nuqta.handihub.outbox.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import tech.nuqta.handihub.enums.OutboxStatus;
+import tech.nuqta.handihub.enums.OutboxType;
+
+import java.time.LocalDateTime;
+
+/**
+ * The OutboxMessage class is a side effect to run after the transaction that wrote it commits.
+ * <p>
+ * A pending message is due at {@code nextAttemptAt}; claiming it pushes that time out by a lease, so a message
+ * claimed by an instance that dies is picked up again. A message that keeps failing is kept as {@code DEAD}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_messages", indexes = @Index(name = "idx_outbox_messages_status_next_attempt_at", columnList = "status, nextAttemptAt, id"))
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxType type;
+    @Column(nullable = false)
+    private Long aggregateId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private int attempts;
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(length = 1000)
+    private String lastError;
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+}
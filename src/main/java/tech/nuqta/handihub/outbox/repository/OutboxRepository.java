@@ -0,0 +1,65 @@
+package tech.nuqta.handihub.outbox.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.enums.OutboxStatus;
+import tech.nuqta.handihub.outbox.entity.OutboxMessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Locks the oldest due pending messages, skipping those locked by other instances, so that instances draining
+     * the outbox concurrently never claim the same message; must be called inside a transaction.
+     */
+    @Query(value = "SELECT * FROM outbox_messages WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Leases claimed messages until the given time and counts the attempt, so a message whose handler keeps
+     * outliving its lease still runs out of attempts. The lease end is the token the claimer later passes to
+     * {@link #markDone} or {@link #markFailed}.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :leaseUntil, m.attempts = m.attempts + 1 WHERE m.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Marks a message handled, unless its lease ran out and another claim took it over.
+     *
+     * @return the number of updated rows, 0 if the lease was lost
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = tech.nuqta.handihub.enums.OutboxStatus.DONE, m.processedAt = :now " +
+            "WHERE m.id = :id and m.status = tech.nuqta.handihub.enums.OutboxStatus.PENDING and m.nextAttemptAt = :leasedUntil")
+    int markDone(@Param("id") Long id, @Param("leasedUntil") LocalDateTime leasedUntil, @Param("now") LocalDateTime now);
+
+    /**
+     * Records a failed attempt and either schedules the next one or dead-letters the message, unless its lease ran
+     * out and another claim took it over.
+     *
+     * @return the number of updated rows, 0 if the lease was lost
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.nextAttemptAt = :nextAttemptAt, m.lastError = :lastError " +
+            "WHERE m.id = :id and m.status = tech.nuqta.handihub.enums.OutboxStatus.PENDING and m.nextAttemptAt = :leasedUntil")
+    int markFailed(@Param("id") Long id, @Param("leasedUntil") LocalDateTime leasedUntil, @Param("status") OutboxStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+
+    /**
+     * Dead-letters claimed messages that used all their attempts without recording an outcome.
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = tech.nuqta.handihub.enums.OutboxStatus.DEAD, m.lastError = :lastError " +
+            "WHERE m.id IN :ids")
+    int deadLetter(@Param("ids") List<Long> ids, @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = tech.nuqta.handihub.enums.OutboxStatus.DONE and m.processedAt < :before")
+    int deleteDoneBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.outbox.service;
+
+import tech.nuqta.handihub.enums.OutboxType;
+
+public interface OutboxService {
+    void enqueue(OutboxType type, Long aggregateId);
+}
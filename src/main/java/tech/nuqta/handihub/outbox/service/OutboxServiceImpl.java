@@ -0,0 +1,35 @@
+package tech.nuqta.handihub.outbox.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tech.nuqta.handihub.enums.OutboxStatus;
+import tech.nuqta.handihub.enums.OutboxType;
+import tech.nuqta.handihub.outbox.entity.OutboxMessage;
+import tech.nuqta.handihub.outbox.repository.OutboxRepository;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+    private final OutboxRepository outboxRepository;
+
+    /**
+     * Writes a side effect in the caller's transaction: it runs only if that transaction commits,
+     * and is not lost if the instance stops right after.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(OutboxType type, Long aggregateId) {
+        var now = LocalDateTime.now();
+        var message = new OutboxMessage();
+        message.setType(type);
+        message.setAggregateId(aggregateId);
+        message.setStatus(OutboxStatus.PENDING);
+        message.setNextAttemptAt(now);
+        message.setCreatedAt(now);
+        outboxRepository.save(message);
+    }
+}
@@ -0,0 +1,62 @@
+package tech.nuqta.handihub.product.cache;
+
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tech.nuqta.handihub.cache.ManagedCacheManager;
+import tech.nuqta.handihub.dto.ProductDTO;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+import tech.nuqta.handihub.mapper.ProductMapper;
+import tech.nuqta.handihub.product.event.ProductChangedEvent;
+import tech.nuqta.handihub.product.repository.ProductsRepository;
+
+/**
+ * The ProductDetailCache class is a read-through cache of product detail DTOs keyed by product id.
+ * <p>
+ * Concurrent misses for the same id share a single database load. Once an entry is older than the
+ * {@code refresh-after-write} of the {@value #CACHE_NAME} spec, the next read still gets the cached value
+ * while a reload runs in the background, so hot products are never served from a cold miss.
+ * Entries are evicted after every committed {@link ProductChangedEvent} for their id.
+ */
+@Component
+public class ProductDetailCache {
+    public static final String CACHE_NAME = "products";
+
+    private final ProductsRepository productsRepository;
+    private final LoadingCache<Long, ProductDTO> cache;
+
+    public ProductDetailCache(ProductsRepository productsRepository, ManagedCacheManager cacheManager) {
+        this.productsRepository = productsRepository;
+        this.cache = cacheManager.registerLoadingCache(CACHE_NAME, this::load);
+    }
+
+    /**
+     * Returns the detail DTO of the given product, loading it on a miss.
+     *
+     * @param productId the product id
+     * @return the product DTO
+     * @throws ItemNotFoundException if the product does not exist or is not available
+     */
+    public ProductDTO get(Long productId) {
+        var product = cache.get(productId);
+        if (product == null) {
+            throw new ItemNotFoundException("Product not found");
+        }
+        return product;
+    }
+
+    public void evict(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.productId());
+    }
+
+    private ProductDTO load(Long productId) {
+        return productsRepository.findDetailById(productId)
+                .map(ProductMapper::toDto)
+                .orElse(null);
+    }
+}
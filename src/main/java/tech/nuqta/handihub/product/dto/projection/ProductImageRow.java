@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.product.dto.projection;
+
+/**
+ * A single image file name of a product, as returned by the batched image query of a listing page.
+ */
+public record ProductImageRow(Long productId, String image) {
+}
@@ -0,0 +1,34 @@
+package tech.nuqta.handihub.product.dto.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only listing projection of {@link tech.nuqta.handihub.product.entity.ProductEntity}.
+ * <p>
+ * It leaves out the TEXT description and the image collection so that a listing page is a single narrow query;
+ * images are fetched separately for the whole page as {@link ProductImageRow}s.
+ */
+public record ProductListingRow(
+        Long id,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long createdBy,
+        Long modifiedBy,
+        String name,
+        String sku,
+        String brand,
+        Double weight,
+        String dimensions,
+        boolean isEnabled,
+        boolean isFeatured,
+        boolean isHandmade,
+        boolean madeToOrder,
+        BigDecimal price,
+        Integer quantity,
+        Long userId,
+        Long categoryId,
+        long ratingSum,
+        int ratingCount
+) {
+}
@@ -0,0 +1,32 @@
+package tech.nuqta.handihub.product.dto.projection;
+
+import tech.nuqta.handihub.product.entity.ProductEntity;
+
+import java.util.List;
+
+/**
+ * Read-only projection of the rating aggregates of a {@link ProductEntity}.
+ */
+public record ProductRatingRow(
+        Long id,
+        Long categoryId,
+        String name,
+        long ratingSum,
+        int ratingCount,
+        int rating1Count,
+        int rating2Count,
+        int rating3Count,
+        int rating4Count,
+        int rating5Count
+) {
+    public double averageRating() {
+        return ProductEntity.averageRating(ratingSum, ratingCount);
+    }
+
+    /**
+     * Returns the number of ratings per star value, from one star to five stars.
+     */
+    public List<Integer> starCounts() {
+        return List.of(rating1Count, rating2Count, rating3Count, rating4Count, rating5Count);
+    }
+}
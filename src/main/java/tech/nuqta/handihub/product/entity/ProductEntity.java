@@ -3,6 +3,7 @@ package tech.nuqta.handihub.product.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import tech.nuqta.handihub.category.entity.CategoryEntity;
 import tech.nuqta.handihub.common.BaseEntity;
 import tech.nuqta.handihub.rating.Rating;
@@ -18,7 +19,7 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "idx_products_created_at_id", columnList = "createdAt, id"))
 public class ProductEntity extends BaseEntity {
     private String name;
     @Column(columnDefinition = "TEXT")
@@ -34,6 +35,11 @@ public class ProductEntity extends BaseEntity {
     @ElementCollection
     private List<String> images;
     private BigDecimal price;
+    /**
+     * Units in stock; only changed by the conditional updates in {@code ProductStockRepository}, so saving the entity
+     * never undoes a checkout that took units out after it was read.
+     */
+    @Column(updatable = false)
     private Integer quantity;
     @ManyToOne(fetch = FetchType.LAZY)
     private User user;
@@ -43,23 +49,39 @@ public class ProductEntity extends BaseEntity {
             cascade = CascadeType.ALL,
             orphanRemoval = true)
     private List<Rating> ratings;
-    private double averageRating;
+    /**
+     * Exact sum of all rating values; only ever changed by the atomic updates in {@code ProductsRepository}, so saving
+     * the entity never writes back a stale value read before a concurrent rating.
+     */
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long ratingSum;
+    @Column(updatable = false)
     private int ratingCount;
+    /**
+     * Number of ratings per star value, kept in the same atomic updates as {@link #ratingSum}.
+     */
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int rating1Count;
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int rating2Count;
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int rating3Count;
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int rating4Count;
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int rating5Count;
 
-    public void updateRating(int newRating) {
-        double totalRating = this.averageRating * this.ratingCount + newRating;
-        this.ratingCount++;
-        this.averageRating = totalRating / this.ratingCount;
+    public double getAverageRating() {
+        return averageRating(ratingSum, ratingCount);
     }
 
-    public void updateRatingOnDelete(int ratingToRemove) {
-        if (this.ratingCount > 1) {
-            double totalRating = this.averageRating * this.ratingCount - ratingToRemove;
-            this.ratingCount--;
-            this.averageRating = totalRating / this.ratingCount;
-        } else {
-            this.ratingCount = 0;
-            this.averageRating = 0.0;
-        }
+    public static double averageRating(long ratingSum, int ratingCount) {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
     }
 }
\ No newline at end of file
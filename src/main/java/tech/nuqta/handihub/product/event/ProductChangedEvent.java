@@ -0,0 +1,21 @@
+package tech.nuqta.handihub.product.event;
+
+/**
+ * The ProductChangedEvent record is published whenever the stored state of a product changes.
+ * <p>
+ * Listeners that keep derived, in-memory views of products (caches, indexes) react to it after the
+ * surrounding transaction commits, so they never observe uncommitted data.
+ *
+ * @param productId the id of the changed product
+ * @param type      what changed
+ */
+public record ProductChangedEvent(Long productId, ChangeType type) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        RATED,
+        STOCK_CHANGED
+    }
+}
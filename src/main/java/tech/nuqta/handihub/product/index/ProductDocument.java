@@ -0,0 +1,30 @@
+package tech.nuqta.handihub.product.index;
+
+import tech.nuqta.handihub.product.entity.ProductEntity;
+
+import java.math.BigDecimal;
+
+/**
+ * The ProductDocument record is the view of an available product that the in-memory indexes are built from.
+ * <p>
+ * It is loaded with a constructor projection, so building or refreshing an index never touches entities or
+ * lazy collections.
+ */
+public record ProductDocument(
+        Long id,
+        String name,
+        String brand,
+        String sku,
+        String description,
+        Long categoryId,
+        BigDecimal price,
+        boolean isHandmade,
+        boolean isFeatured,
+        boolean madeToOrder,
+        long ratingSum,
+        int ratingCount
+) {
+    public double averageRating() {
+        return ProductEntity.averageRating(ratingSum, ratingCount);
+    }
+}
@@ -0,0 +1,24 @@
+package tech.nuqta.handihub.product.index;
+
+/**
+ * The ProductIndex interface is implemented by every in-memory index over available products.
+ * <p>
+ * Indexes do not load data themselves: {@link ProductIndexCoordinator} feeds them the whole catalog at startup
+ * and then every committed change. Implementations must be safe for concurrent reads during updates.
+ */
+public interface ProductIndex {
+    /**
+     * Adds the given product, replacing any previous version of it.
+     */
+    void upsert(ProductDocument document);
+
+    /**
+     * Removes the given product if it is indexed.
+     */
+    void remove(Long productId);
+
+    /**
+     * Removes all products.
+     */
+    void clear();
+}
@@ -0,0 +1,107 @@
+package tech.nuqta.handihub.product.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tech.nuqta.handihub.product.event.ProductChangedEvent;
+import tech.nuqta.handihub.product.repository.ProductsRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ProductIndexCoordinator class keeps every {@link ProductIndex} in sync with the products table.
+ * <p>
+ * At startup the catalog is streamed once and each document is handed to all indexes, so memory use does not
+ * depend on the catalog size. Afterwards each committed {@link ProductChangedEvent} reloads the one product and
+ * upserts or removes it everywhere. Changes to the same product are applied one at a time, so an older state
+ * can never overwrite a newer one.
+ * <p>
+ * Events only reach the instance that made the change, so every instance also reconciles periodically: products
+ * created or modified since the previous pass, looking back a little further to cover transactions that committed
+ * late and clock skew between instances, are reloaded the same way. The locks are explicit rather than monitors
+ * because they are held across a query, which would pin a virtual thread.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductIndexCoordinator {
+    private static final int LOCK_STRIPES = 64;
+
+    private final ProductsRepository productsRepository;
+    private final List<ProductIndex> indexes;
+    private final ReentrantLock[] locks = createLocks();
+
+    @Value("${application.search.reconcile-lookback:PT1M}")
+    private Duration reconcileLookback;
+
+    private volatile LocalDateTime reconciledAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        var startedAt = LocalDateTime.now();
+        indexes.forEach(ProductIndex::clear);
+        int[] count = {0};
+        try (var documents = productsRepository.streamAllDocuments()) {
+            documents.forEach(document -> {
+                indexes.forEach(index -> index.upsert(document));
+                count[0]++;
+            });
+        }
+        log.info("{} product indexes built with {} products in {} ms",
+                indexes.size(), count[0], System.currentTimeMillis() - start);
+        reconciledAt = startedAt;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        refresh(event.productId());
+    }
+
+    /**
+     * Reloads the products changed on any instance since the previous pass, so that changes made elsewhere reach
+     * this instance's indexes within an interval.
+     */
+    @Scheduled(fixedDelayString = "${application.search.reconcile-interval:PT30S}")
+    public void reconcile() {
+        var since = reconciledAt;
+        if (since == null) {
+            return;
+        }
+        var now = LocalDateTime.now();
+        var productIds = productsRepository.findIdsChangedSince(since.minus(reconcileLookback));
+        productIds.forEach(this::refresh);
+        reconciledAt = now;
+        log.debug("{} changed products reconciled", productIds.size());
+    }
+
+    private void refresh(Long productId) {
+        var lock = locks[(int) Math.floorMod(productId, (long) LOCK_STRIPES)];
+        lock.lock();
+        try {
+            productsRepository.findDocumentById(productId).ifPresentOrElse(
+                    document -> indexes.forEach(index -> index.upsert(document)),
+                    () -> indexes.forEach(index -> index.remove(productId)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ReentrantLock[] createLocks() {
+        var locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,36 @@
+package tech.nuqta.handihub.product.index;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The ProductSearchFilter record holds the optional filters of a catalog query; null fields do not filter.
+ *
+ * @param categoryId the category whose subtree the products must belong to
+ * @param handmade   the required handmade flag
+ * @param featured   the required featured flag
+ * @param minPrice   the lowest price, inclusive
+ * @param maxPrice   the highest price, inclusive
+ */
+public record ProductSearchFilter(
+        Long categoryId,
+        Boolean handmade,
+        Boolean featured,
+        BigDecimal minPrice,
+        BigDecimal maxPrice
+) {
+    /**
+     * Builds a predicate over documents.
+     *
+     * @param categoryIds the ids of the {@link #categoryId} subtree, ignored when no category is filtered
+     * @return the predicate
+     */
+    public Predicate<ProductDocument> toPredicate(Set<Long> categoryIds) {
+        return document -> (categoryId == null || categoryIds.contains(document.categoryId()))
+                && (handmade == null || document.isHandmade() == handmade)
+                && (featured == null || document.isFeatured() == featured)
+                && (minPrice == null || document.price() != null && document.price().compareTo(minPrice) >= 0)
+                && (maxPrice == null || document.price() != null && document.price().compareTo(maxPrice) <= 0);
+    }
+}
@@ -0,0 +1,39 @@
+package tech.nuqta.handihub.product.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The Tokenizer class turns product text and queries into index terms.
+ * <p>
+ * Text is lower-cased, stripped of diacritics and split on anything that is not a letter or a digit,
+ * so "Çeramik-Vase" and "ceramik vase" produce the same terms.
+ */
+public final class Tokenizer {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private Tokenizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        var decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        var terms = new ArrayList<String>();
+        for (String term : SEPARATORS.split(normalize(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,20 @@
+package tech.nuqta.handihub.product.index.facet;
+
+import java.util.List;
+
+/**
+ * The counts of one facet, e.g. the number of matching products per brand.
+ *
+ * @param name   the facet name
+ * @param values the values of the facet with their counts
+ */
+public record Facet(String name, List<Value> values) {
+
+    /**
+     * @param value the value to send back in a filter
+     * @param label the display label
+     * @param count the number of products that would match if this value were selected
+     */
+    public record Value(String value, String label, int count) {
+    }
+}
@@ -0,0 +1,28 @@
+package tech.nuqta.handihub.product.index.facet;
+
+import java.util.Set;
+
+/**
+ * The FacetQuery record holds the selected facet values of a catalog filter; null or empty fields do not filter.
+ * Several brands or price bands match any of them.
+ *
+ * @param categoryId  the category whose subtree the products must belong to
+ * @param handmade    the required handmade flag
+ * @param featured    the required featured flag
+ * @param madeToOrder the required made-to-order flag
+ * @param brands      the accepted brands, compared case-insensitively
+ * @param priceBands  the accepted price bands
+ */
+public record FacetQuery(
+        Long categoryId,
+        Boolean handmade,
+        Boolean featured,
+        Boolean madeToOrder,
+        Set<String> brands,
+        Set<PriceBand> priceBands
+) {
+    public FacetQuery {
+        brands = brands == null ? Set.of() : Set.copyOf(brands);
+        priceBands = priceBands == null ? Set.of() : Set.copyOf(priceBands);
+    }
+}
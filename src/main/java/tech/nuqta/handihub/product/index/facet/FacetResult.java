@@ -0,0 +1,11 @@
+package tech.nuqta.handihub.product.index.facet;
+
+import tech.nuqta.handihub.product.index.ProductDocument;
+
+import java.util.List;
+
+/**
+ * One page of products matching a {@link FacetQuery}, the total number of matches and the facet counts.
+ */
+public record FacetResult(List<ProductDocument> documents, int totalHits, List<Facet> facets) {
+}
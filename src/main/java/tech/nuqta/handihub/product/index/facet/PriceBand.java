@@ -0,0 +1,59 @@
+package tech.nuqta.handihub.product.index.facet;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * The PriceBand enum lists the price ranges the catalog can be filtered and counted by.
+ * Lower bounds are inclusive and upper bounds exclusive.
+ */
+public enum PriceBand {
+    UNDER_10("0-10", null, new BigDecimal("10")),
+    FROM_10_TO_25("10-25", new BigDecimal("10"), new BigDecimal("25")),
+    FROM_25_TO_50("25-50", new BigDecimal("25"), new BigDecimal("50")),
+    FROM_50_TO_100("50-100", new BigDecimal("50"), new BigDecimal("100")),
+    FROM_100_TO_250("100-250", new BigDecimal("100"), new BigDecimal("250")),
+    FROM_250("250+", new BigDecimal("250"), null);
+
+    private final String label;
+    private final BigDecimal lowerBound;
+    private final BigDecimal upperBound;
+
+    PriceBand(String label, BigDecimal lowerBound, BigDecimal upperBound) {
+        this.label = label;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Returns the band containing the given price.
+     *
+     * @param price the price, may be null
+     * @return the band, or null if the product has no price
+     */
+    public static PriceBand of(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        for (PriceBand band : values()) {
+            if ((band.lowerBound == null || price.compareTo(band.lowerBound) >= 0)
+                    && (band.upperBound == null || price.compareTo(band.upperBound) < 0)) {
+                return band;
+            }
+        }
+        return null;
+    }
+
+    public static Optional<PriceBand> fromLabel(String label) {
+        for (PriceBand band : values()) {
+            if (band.label.equals(label)) {
+                return Optional.of(band);
+            }
+        }
+        return Optional.empty();
+    }
+}
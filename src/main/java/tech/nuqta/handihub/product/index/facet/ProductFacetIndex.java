@@ -0,0 +1,305 @@
+package tech.nuqta.handihub.product.index.facet;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.category.tree.CategoryTree;
+import tech.nuqta.handihub.category.tree.CategoryTreeHolder;
+import tech.nuqta.handihub.dto.CategoryDto;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+import tech.nuqta.handihub.product.index.ProductDocument;
+import tech.nuqta.handihub.product.index.ProductIndex;
+import tech.nuqta.handihub.product.index.Tokenizer;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The ProductFacetIndex class answers faceted catalog filters with compressed bitmaps.
+ * <p>
+ * Every indexed product gets a dense int ordinal, in the order products are first indexed, and every facet value
+ * (category, handmade, featured, made to order, brand, price band) keeps a Roaring bitmap of the ordinals that have
+ * it. A filter is the intersection of the selected values' bitmaps. The count of a facet value is the cardinality of
+ * its bitmap intersected with all the other selected filters, so selecting a brand still shows the counts of the
+ * other brands. No query touches the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex implements ProductIndex {
+    public static final String CATEGORY = "category";
+    public static final String HANDMADE = "handmade";
+    public static final String FEATURED = "featured";
+    public static final String MADE_TO_ORDER = "madeToOrder";
+    public static final String BRAND = "brand";
+    public static final String PRICE = "price";
+    private static final int MAX_BRAND_VALUES = 20;
+
+    private final CategoryTreeHolder categoryTreeHolder;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalsByProductId = new HashMap<>();
+    private ProductDocument[] documentsByOrdinal = new ProductDocument[1024];
+    private int nextOrdinal;
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final RoaringBitmap handmade = new RoaringBitmap();
+    private final RoaringBitmap featured = new RoaringBitmap();
+    private final RoaringBitmap madeToOrder = new RoaringBitmap();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<String, RoaringBitmap> byBrand = new HashMap<>();
+    private final Map<String, String> brandLabels = new HashMap<>();
+    private final Map<PriceBand, RoaringBitmap> byPriceBand = new EnumMap<>(PriceBand.class);
+
+    @Override
+    public void upsert(ProductDocument document) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalsByProductId.computeIfAbsent(document.id(), id -> nextOrdinal++);
+            if (ordinal >= documentsByOrdinal.length) {
+                documentsByOrdinal = Arrays.copyOf(documentsByOrdinal, documentsByOrdinal.length * 2);
+            }
+            var previous = documentsByOrdinal[ordinal];
+            if (previous != null) {
+                unindex(previous, ordinal);
+            }
+            index(document, ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            var ordinal = ordinalsByProductId.get(productId);
+            if (ordinal != null && documentsByOrdinal[ordinal] != null) {
+                unindex(documentsByOrdinal[ordinal], ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinalsByProductId.clear();
+            documentsByOrdinal = new ProductDocument[1024];
+            nextOrdinal = 0;
+            live.clear();
+            handmade.clear();
+            featured.clear();
+            madeToOrder.clear();
+            byCategory.clear();
+            byBrand.clear();
+            brandLabels.clear();
+            byPriceBand.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a page of the matching products, newest first, with the counts of every facet.
+     *
+     * @param query  the selected facet values
+     * @param offset the number of matching products to skip
+     * @param limit  the maximum number of products to return
+     * @return the page, the total number of matches and the facets
+     * @throws ItemNotFoundException if the filtered category does not exist
+     */
+    public FacetResult query(FacetQuery query, int offset, int limit) {
+        var tree = categoryTreeHolder.get();
+        lock.readLock().lock();
+        try {
+            var filters = new RoaringBitmap[6];
+            if (query.categoryId() != null) {
+                if (!tree.contains(query.categoryId())) {
+                    throw new ItemNotFoundException("Category not found");
+                }
+                filters[0] = subtreeBitmap(tree, query.categoryId());
+            }
+            filters[1] = flagFilter(handmade, query.handmade());
+            filters[2] = flagFilter(featured, query.featured());
+            filters[3] = flagFilter(madeToOrder, query.madeToOrder());
+            if (!query.brands().isEmpty()) {
+                filters[4] = union(query.brands().stream().map(brand -> byBrand.get(brandKey(brand))).toList());
+            }
+            if (!query.priceBands().isEmpty()) {
+                filters[5] = union(query.priceBands().stream().map(byPriceBand::get).toList());
+            }
+
+            var matches = intersect(filters, -1);
+            int totalHits = matches.getCardinality();
+            var documents = new ArrayList<ProductDocument>();
+            for (int i = offset; i < totalHits && documents.size() < limit; i++) {
+                documents.add(documentsByOrdinal[matches.select(totalHits - 1 - i)]);
+            }
+
+            var facets = List.of(
+                    categoryFacet(tree, query.categoryId(), intersect(filters, 0)),
+                    flagFacet(HANDMADE, handmade, intersect(filters, 1)),
+                    flagFacet(FEATURED, featured, intersect(filters, 2)),
+                    flagFacet(MADE_TO_ORDER, madeToOrder, intersect(filters, 3)),
+                    brandFacet(intersect(filters, 4)),
+                    priceFacet(intersect(filters, 5))
+            );
+            return new FacetResult(documents, totalHits, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the indexed document of an available product.
+     *
+     * @param productId the product id
+     * @return the document, or empty if the product is not available
+     */
+    public Optional<ProductDocument> findDocument(Long productId) {
+        lock.readLock().lock();
+        try {
+            var ordinal = ordinalsByProductId.get(productId);
+            return ordinal == null ? Optional.empty() : Optional.ofNullable(documentsByOrdinal[ordinal]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(ProductDocument document, int ordinal) {
+        documentsByOrdinal[ordinal] = document;
+        live.add(ordinal);
+        setFlag(handmade, ordinal, document.isHandmade());
+        setFlag(featured, ordinal, document.isFeatured());
+        setFlag(madeToOrder, ordinal, document.madeToOrder());
+        if (document.categoryId() != null) {
+            byCategory.computeIfAbsent(document.categoryId(), id -> new RoaringBitmap()).add(ordinal);
+        }
+        var brandKey = brandKey(document.brand());
+        if (!brandKey.isEmpty()) {
+            byBrand.computeIfAbsent(brandKey, key -> new RoaringBitmap()).add(ordinal);
+            brandLabels.putIfAbsent(brandKey, document.brand().trim());
+        }
+        var band = PriceBand.of(document.price());
+        if (band != null) {
+            byPriceBand.computeIfAbsent(band, b -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private void unindex(ProductDocument document, int ordinal) {
+        documentsByOrdinal[ordinal] = null;
+        live.remove(ordinal);
+        handmade.remove(ordinal);
+        featured.remove(ordinal);
+        madeToOrder.remove(ordinal);
+        removeFrom(byCategory, document.categoryId(), ordinal);
+        var brandKey = brandKey(document.brand());
+        removeFrom(byBrand, brandKey, ordinal);
+        if (!byBrand.containsKey(brandKey)) {
+            brandLabels.remove(brandKey);
+        }
+        removeFrom(byPriceBand, PriceBand.of(document.price()), ordinal);
+    }
+
+    private Facet categoryFacet(CategoryTree tree, Long categoryId, RoaringBitmap context) {
+        var categories = categoryId == null
+                ? tree.roots()
+                : tree.find(categoryId).map(CategoryDto::subCategories).orElse(List.of());
+        var values = new ArrayList<Facet.Value>();
+        for (CategoryDto category : categories) {
+            int count = RoaringBitmap.andCardinality(context, subtreeBitmap(tree, category.id()));
+            if (count > 0) {
+                values.add(new Facet.Value(category.id().toString(), category.name(), count));
+            }
+        }
+        return new Facet(CATEGORY, values);
+    }
+
+    private static Facet flagFacet(String name, RoaringBitmap flag, RoaringBitmap context) {
+        int withFlag = RoaringBitmap.andCardinality(context, flag);
+        return new Facet(name, List.of(
+                new Facet.Value("true", "Yes", withFlag),
+                new Facet.Value("false", "No", context.getCardinality() - withFlag)
+        ));
+    }
+
+    private Facet brandFacet(RoaringBitmap context) {
+        var values = new ArrayList<Facet.Value>();
+        byBrand.forEach((key, bitmap) -> {
+            int count = RoaringBitmap.andCardinality(context, bitmap);
+            if (count > 0) {
+                values.add(new Facet.Value(key, brandLabels.get(key), count));
+            }
+        });
+        values.sort(Comparator.comparingInt(Facet.Value::count).reversed().thenComparing(Facet.Value::label));
+        return new Facet(BRAND, values.size() > MAX_BRAND_VALUES ? values.subList(0, MAX_BRAND_VALUES) : values);
+    }
+
+    private Facet priceFacet(RoaringBitmap context) {
+        var values = new ArrayList<Facet.Value>();
+        for (PriceBand band : PriceBand.values()) {
+            var bitmap = byPriceBand.get(band);
+            int count = bitmap == null ? 0 : RoaringBitmap.andCardinality(context, bitmap);
+            values.add(new Facet.Value(band.label(), band.label(), count));
+        }
+        return new Facet(PRICE, values);
+    }
+
+    private RoaringBitmap subtreeBitmap(CategoryTree tree, Long categoryId) {
+        return union(tree.subtreeIds(categoryId).stream().map(byCategory::get).toList());
+    }
+
+    private RoaringBitmap flagFilter(RoaringBitmap flag, Boolean wanted) {
+        if (wanted == null) {
+            return null;
+        }
+        return wanted ? flag : RoaringBitmap.andNot(live, flag);
+    }
+
+    /**
+     * Intersects the live products with all filters except the one at {@code skip}; pass -1 to apply all.
+     */
+    private RoaringBitmap intersect(RoaringBitmap[] filters, int skip) {
+        var result = live.clone();
+        for (int i = 0; i < filters.length; i++) {
+            if (i != skip && filters[i] != null) {
+                result.and(filters[i]);
+            }
+        }
+        return result;
+    }
+
+    private static RoaringBitmap union(List<RoaringBitmap> bitmaps) {
+        var result = new RoaringBitmap();
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static void setFlag(RoaringBitmap bitmap, int ordinal, boolean value) {
+        if (value) {
+            bitmap.add(ordinal);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        var bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private static String brandKey(String brand) {
+        return Tokenizer.normalize(brand).trim();
+    }
+}
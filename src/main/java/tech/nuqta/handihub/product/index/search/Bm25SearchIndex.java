@@ -0,0 +1,185 @@
+package tech.nuqta.handihub.product.index.search;
+
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.product.index.ProductDocument;
+import tech.nuqta.handihub.product.index.ProductIndex;
+import tech.nuqta.handihub.product.index.Tokenizer;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * The Bm25SearchIndex class is an in-memory inverted index over product name, brand, sku and description.
+ * <p>
+ * Each term maps to the products containing it with a field-weighted term frequency, and hits are ranked with
+ * BM25 using those weighted frequencies and weighted document lengths. A query only touches the posting lists of
+ * its own terms, so it costs O(matching postings) rather than a scan of the catalog.
+ */
+@Component
+public class Bm25SearchIndex implements ProductIndex {
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float SKU_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Comparator<SearchHit> BY_RELEVANCE = Comparator.comparingDouble(SearchHit::score).reversed()
+            .thenComparing(hit -> hit.document().id());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private double totalLength;
+
+    @Override
+    public void upsert(ProductDocument document) {
+        var frequencies = new HashMap<String, Float>();
+        addField(frequencies, document.name(), NAME_WEIGHT);
+        addField(frequencies, document.brand(), BRAND_WEIGHT);
+        addField(frequencies, document.sku(), SKU_WEIGHT);
+        addField(frequencies, document.description(), DESCRIPTION_WEIGHT);
+        float length = 0;
+        for (float frequency : frequencies.values()) {
+            length += frequency;
+        }
+        var indexed = new IndexedDocument(document, Map.copyOf(frequencies), length);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.id());
+            indexed.frequencies().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), frequency));
+            documents.put(document.id(), indexed);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the products matching any of the given terms.
+     *
+     * @param terms  the query terms, already tokenized
+     * @param filter the predicate a product must satisfy
+     * @param offset the number of best hits to skip
+     * @param limit  the maximum number of hits to return
+     * @return the requested page of hits and the total number of matching products
+     */
+    public SearchResult search(Collection<String> terms, Predicate<ProductDocument> filter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty() || terms.isEmpty()) {
+                return SearchResult.empty();
+            }
+            int documentCount = documents.size();
+            double averageLength = totalLength / documentCount;
+            var scores = new HashMap<Long, Double>();
+            for (String term : new LinkedHashSet<>(terms)) {
+                var termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+                termPostings.forEach((productId, frequency) -> {
+                    double lengthNorm = 1 - B + B * documents.get(productId).length() / averageLength;
+                    double score = idf * frequency * (K1 + 1) / (frequency + K1 * lengthNorm);
+                    scores.merge(productId, score, Double::sum);
+                });
+            }
+            return topHits(scores, filter, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns whether any indexed product contains the given term in one of its fields.
+     */
+    public boolean containsTerm(String term) {
+        lock.readLock().lock();
+        try {
+            return postings.containsKey(term);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SearchResult topHits(Map<Long, Double> scores, Predicate<ProductDocument> filter, int offset, int limit) {
+        int wanted = offset + limit;
+        var worstFirst = new PriorityQueue<SearchHit>(Math.min(wanted, scores.size()) + 1, BY_RELEVANCE.reversed());
+        int totalHits = 0;
+        for (var entry : scores.entrySet()) {
+            var document = documents.get(entry.getKey()).document();
+            if (!filter.test(document)) {
+                continue;
+            }
+            totalHits++;
+            worstFirst.add(new SearchHit(document, entry.getValue()));
+            if (worstFirst.size() > wanted) {
+                worstFirst.poll();
+            }
+        }
+        var hits = worstFirst.stream()
+                .sorted(BY_RELEVANCE)
+                .skip(offset)
+                .toList();
+        return new SearchResult(hits, totalHits);
+    }
+
+    private void removeLocked(Long productId) {
+        var previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        previous.frequencies().keySet().forEach(term -> {
+            var termPostings = postings.get(term);
+            termPostings.remove(productId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+        totalLength -= previous.length();
+    }
+
+    private static void addField(Map<String, Float> frequencies, String text, float weight) {
+        for (String term : Tokenizer.tokenize(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    private record IndexedDocument(ProductDocument document, Map<String, Float> frequencies, float length) {
+    }
+}
@@ -0,0 +1,321 @@
+package tech.nuqta.handihub.product.index.search;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.product.index.ProductDocument;
+import tech.nuqta.handihub.product.index.ProductIndex;
+import tech.nuqta.handihub.product.index.Tokenizer;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * The FuzzySearchIndex class finds products whose name or brand words are within a few typos of the query terms.
+ * <p>
+ * Every distinct word gets an ordinal and is split into trigrams of {@code ^word$}; each trigram keeps a Roaring
+ * bitmap of the words containing it, and each word a bitmap of the products containing it. A typo (insertion,
+ * deletion, substitution or swap of adjacent characters) changes at most four trigrams, so a word within {@code k}
+ * typos of a term of length {@code n} shares at least {@code n - 4k} of the term's trigrams. Words passing that
+ * count, restricted to lengths within {@code k}, are verified with a banded edit distance.
+ * <p>
+ * A product scores the sum over the terms of its most similar word's {@code 1 - distance / length}, boosted by the
+ * logarithm of its rating count. Scores are accumulated per term by walking the matched words' product bitmaps,
+ * most similar word first, so no product is looked up in a bitmap one at a time. They are summed in a primitive map
+ * sized by the matched products, so a query allocates in proportion to its matches rather than to the catalog.
+ */
+@Component
+public class FuzzySearchIndex implements ProductIndex {
+    private static final int MAX_TERMS = 8;
+    private static final int MAX_WORDS_PER_TERM = 64;
+    private static final double POPULARITY_WEIGHT = 0.05;
+    private static final Comparator<SearchHit> BY_RELEVANCE = Comparator.comparingDouble(SearchHit::score).reversed()
+            .thenComparing(hit -> hit.document().id());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalsByProductId = new HashMap<>();
+    private IndexedProduct[] productsByOrdinal = new IndexedProduct[1024];
+    private int nextProductOrdinal;
+    private final Map<String, Integer> wordOrdinals = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final List<RoaringBitmap> productsByWord = new ArrayList<>();
+    private final Map<String, RoaringBitmap> wordsByTrigram = new HashMap<>();
+    private final List<RoaringBitmap> wordsByLength = new ArrayList<>();
+
+    @Override
+    public void upsert(ProductDocument document) {
+        var terms = new LinkedHashSet<String>();
+        terms.addAll(Tokenizer.tokenize(document.name()));
+        terms.addAll(Tokenizer.tokenize(document.brand()));
+
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinalsByProductId.computeIfAbsent(document.id(), id -> nextProductOrdinal++);
+            if (ordinal >= productsByOrdinal.length) {
+                productsByOrdinal = Arrays.copyOf(productsByOrdinal, productsByOrdinal.length * 2);
+            }
+            unindex(ordinal);
+            var wordsOfProduct = new int[terms.size()];
+            int i = 0;
+            for (String term : terms) {
+                int word = wordOrdinal(term);
+                productsByWord.get(word).add(ordinal);
+                wordsOfProduct[i++] = word;
+            }
+            productsByOrdinal[ordinal] = new IndexedProduct(document, wordsOfProduct);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            var ordinal = ordinalsByProductId.get(productId);
+            if (ordinal != null) {
+                unindex(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ordinalsByProductId.clear();
+            productsByOrdinal = new IndexedProduct[1024];
+            nextProductOrdinal = 0;
+            wordOrdinals.clear();
+            words.clear();
+            productsByWord.clear();
+            wordsByTrigram.clear();
+            wordsByLength.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the products with a name or brand word close to any of the given terms.
+     *
+     * @param terms  the query terms, already tokenized
+     * @param filter the predicate a product must satisfy
+     * @param offset the number of best hits to skip
+     * @param limit  the maximum number of hits to return
+     * @return the requested page of hits and the total number of matching products
+     */
+    public SearchResult search(Collection<String> terms, Predicate<ProductDocument> filter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            var matchesByTerm = new LinkedHashSet<>(terms).stream()
+                    .limit(MAX_TERMS)
+                    .map(this::matchWords)
+                    .filter(matches -> !matches.isEmpty())
+                    .toList();
+            if (matchesByTerm.isEmpty()) {
+                return SearchResult.empty();
+            }
+            var candidates = new RoaringBitmap();
+            var similarities = new IntFloatAccumulator(expectedCandidates(matchesByTerm));
+            for (List<WordMatch> matches : matchesByTerm) {
+                var termProducts = new RoaringBitmap();
+                for (WordMatch match : matches) {
+                    var firstMatched = RoaringBitmap.andNot(productsByWord.get(match.word()), termProducts);
+                    firstMatched.forEach((int ordinal) -> similarities.add(ordinal, (float) match.similarity()));
+                    termProducts.or(firstMatched);
+                }
+                candidates.or(termProducts);
+            }
+
+            int wanted = offset + limit;
+            var worstFirst = new PriorityQueue<SearchHit>(Math.min(wanted, candidates.getCardinality()) + 1,
+                    BY_RELEVANCE.reversed());
+            int totalHits = 0;
+            var ordinals = candidates.getIntIterator();
+            while (ordinals.hasNext()) {
+                int ordinal = ordinals.next();
+                var document = productsByOrdinal[ordinal].document();
+                if (!filter.test(document)) {
+                    continue;
+                }
+                totalHits++;
+                double score = similarities.get(ordinal) * (1 + POPULARITY_WEIGHT * Math.log1p(document.ratingCount()));
+                if (worstFirst.size() < wanted) {
+                    worstFirst.add(new SearchHit(document, score));
+                } else if (ranksAbove(score, document.id(), worstFirst.peek())) {
+                    worstFirst.poll();
+                    worstFirst.add(new SearchHit(document, score));
+                }
+            }
+            var hits = worstFirst.stream()
+                    .sorted(BY_RELEVANCE)
+                    .skip(offset)
+                    .toList();
+            return new SearchResult(hits, totalHits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bounds the number of products matching any term by the products of the matched words, capped by the catalog.
+     */
+    private int expectedCandidates(List<List<WordMatch>> matchesByTerm) {
+        long products = 0;
+        for (List<WordMatch> matches : matchesByTerm) {
+            for (WordMatch match : matches) {
+                products += productsByWord.get(match.word()).getCardinality();
+            }
+        }
+        return (int) Math.min(products, ordinalsByProductId.size());
+    }
+
+    private static boolean ranksAbove(double score, Long productId, SearchHit hit) {
+        return score > hit.score() || score == hit.score() && productId < hit.document().id();
+    }
+
+    /**
+     * Returns the indexed words within the allowed number of edits of the term, most similar first.
+     */
+    private List<WordMatch> matchWords(String term) {
+        int maxEdits = maxEdits(term.length());
+        var lengths = new RoaringBitmap();
+        for (int length = Math.max(1, term.length() - maxEdits); length <= term.length() + maxEdits; length++) {
+            if (length < wordsByLength.size()) {
+                lengths.or(wordsByLength.get(length));
+            }
+        }
+        if (lengths.isEmpty()) {
+            return List.of();
+        }
+
+        var trigrams = trigrams(term);
+        int minShared = Math.max(1, trigrams.size() - 4 * maxEdits);
+        var sharedCounts = new HashMap<Integer, Integer>();
+        for (String trigram : trigrams) {
+            var trigramWords = wordsByTrigram.get(trigram);
+            if (trigramWords != null) {
+                for (int word : RoaringBitmap.and(trigramWords, lengths)) {
+                    sharedCounts.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+
+        var matches = new ArrayList<WordMatch>();
+        sharedCounts.forEach((word, shared) -> {
+            if (shared < minShared || productsByWord.get(word).isEmpty()) {
+                return;
+            }
+            var candidate = words.get(word);
+            int distance = boundedDistance(term, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(new WordMatch(word, 1 - (double) distance / Math.max(term.length(), candidate.length())));
+            }
+        });
+        matches.sort(Comparator.comparingDouble(WordMatch::similarity).reversed());
+        return matches.size() > MAX_WORDS_PER_TERM ? List.copyOf(matches.subList(0, MAX_WORDS_PER_TERM)) : matches;
+    }
+
+    private int wordOrdinal(String word) {
+        var existing = wordOrdinals.get(word);
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = words.size();
+        wordOrdinals.put(word, ordinal);
+        words.add(word);
+        productsByWord.add(new RoaringBitmap());
+        for (String trigram : trigrams(word)) {
+            wordsByTrigram.computeIfAbsent(trigram, t -> new RoaringBitmap()).add(ordinal);
+        }
+        while (wordsByLength.size() <= word.length()) {
+            wordsByLength.add(new RoaringBitmap());
+        }
+        wordsByLength.get(word.length()).add(ordinal);
+        return ordinal;
+    }
+
+    private void unindex(int ordinal) {
+        var previous = productsByOrdinal[ordinal];
+        if (previous == null) {
+            return;
+        }
+        for (int word : previous.words()) {
+            productsByWord.get(word).remove(ordinal);
+        }
+        productsByOrdinal[ordinal] = null;
+    }
+
+    /**
+     * Allows no typo in terms shorter than four characters, one up to seven characters and two beyond.
+     */
+    static int maxEdits(int length) {
+        return length < 4 ? 0 : length < 8 ? 1 : 2;
+    }
+
+    static Set<String> trigrams(String word) {
+        var padded = "^" + word + "$";
+        var trigrams = new LinkedHashSet<String>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Computes the edit distance between two words, counting insertions, deletions, substitutions and swaps of two
+     * adjacent characters, and gives up with {@code maxEdits + 1} as soon as it is exceeded.
+     * Only the diagonal band of width {@code 2 * maxEdits + 1} of the distance matrix is filled.
+     */
+    static int boundedDistance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int over = maxEdits + 1;
+        var beforePrevious = new int[b.length() + 1];
+        var previous = new int[b.length() + 1];
+        var current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j <= maxEdits ? j : over;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - maxEdits);
+            int to = Math.min(b.length(), i + maxEdits);
+            current[0] = i <= maxEdits ? i : over;
+            if (from > 1) {
+                current[from - 1] = over;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                int value = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = Math.min(value, over);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) {
+                current[to + 1] = over;
+            }
+            if (rowMin > maxEdits) {
+                return over;
+            }
+            var recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private record IndexedProduct(ProductDocument document, int[] words) {
+    }
+
+    private record WordMatch(int word, double similarity) {
+    }
+}
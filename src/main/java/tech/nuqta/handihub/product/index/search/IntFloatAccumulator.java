@@ -0,0 +1,77 @@
+package tech.nuqta.handihub.product.index.search;
+
+/**
+ * A map from non-negative int keys to float sums, backed by two primitive arrays with open addressing and linear
+ * probing.
+ * <p>
+ * Keys are stored plus one so that zero marks an empty slot. Not thread-safe.
+ */
+final class IntFloatAccumulator {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private float[] sums;
+    private int size;
+
+    /**
+     * @param expectedSize the number of keys expected, to size the arrays once
+     */
+    IntFloatAccumulator(int expectedSize) {
+        keys = new int[capacityFor(expectedSize)];
+        sums = new float[keys.length];
+    }
+
+    void add(int key, float delta) {
+        int slot = slot(keys, key + 1);
+        if (keys[slot] != 0) {
+            sums[slot] += delta;
+            return;
+        }
+        keys[slot] = key + 1;
+        sums[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize(keys.length * 2);
+        }
+    }
+
+    float get(int key) {
+        int slot = slot(keys, key + 1);
+        return keys[slot] != 0 ? sums[slot] : 0;
+    }
+
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldSums = sums;
+        keys = new int[capacity];
+        sums = new float[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                sums[slot] = oldSums[i];
+            }
+        }
+    }
+
+    private static int slot(int[] keys, int storedKey) {
+        int mask = keys.length - 1;
+        int slot = mix(storedKey) & mask;
+        while (keys[slot] != 0 && keys[slot] != storedKey) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = 8;
+        while (capacity * LOAD_FACTOR < entries + 1) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
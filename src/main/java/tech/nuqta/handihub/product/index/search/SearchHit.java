@@ -0,0 +1,9 @@
+package tech.nuqta.handihub.product.index.search;
+
+import tech.nuqta.handihub.product.index.ProductDocument;
+
+/**
+ * A product matched by a search, with its relevance score.
+ */
+public record SearchHit(ProductDocument document, double score) {
+}
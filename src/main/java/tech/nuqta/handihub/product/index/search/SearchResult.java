@@ -0,0 +1,12 @@
+package tech.nuqta.handihub.product.index.search;
+
+import java.util.List;
+
+/**
+ * One page of search hits together with the total number of matching products.
+ */
+public record SearchResult(List<SearchHit> hits, int totalHits) {
+    public static SearchResult empty() {
+        return new SearchResult(List.of(), 0);
+    }
+}
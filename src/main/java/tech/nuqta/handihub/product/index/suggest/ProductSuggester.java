@@ -0,0 +1,373 @@
+package tech.nuqta.handihub.product.index.suggest;
+
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.dto.SuggestionDto;
+import tech.nuqta.handihub.product.index.ProductDocument;
+import tech.nuqta.handihub.product.index.ProductIndex;
+import tech.nuqta.handihub.product.index.Tokenizer;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The ProductSuggester class completes prefixes of product names and brands.
+ * <p>
+ * Phrases are stored in a radix trie, a trie whose single-child chains are collapsed into one edge label, so the
+ * number of nodes is bounded by twice the number of keys. Each name is indexed from the start of each of its first
+ * words, so "vase" also completes to "Blue ceramic vase". Every node caches the {@value #TOP_K} most popular
+ * suggestions of its subtree; a lookup walks the prefix and returns that cache, so it costs O(prefix length).
+ * A phrase's popularity is the sum over the products carrying it of {@code 1 + ratingCount}. When it changes, the
+ * caches on the phrase's paths are re-merged bottom-up from their children.
+ */
+@Component
+public class ProductSuggester implements ProductIndex {
+    public static final int TOP_K = 10;
+    private static final int MAX_NAME_SUFFIXES = 4;
+    private static final Comparator<Suggestion> BY_POPULARITY = Comparator.<Suggestion>comparingLong(s -> s.weight)
+            .reversed()
+            .thenComparing(s -> s.text)
+            .thenComparing(s -> s.type);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Suggestion> suggestionsByKey = new HashMap<>();
+    private final Map<Long, Contribution> contributionsByProductId = new HashMap<>();
+    private Node root = new Node("");
+
+    @Override
+    public void upsert(ProductDocument document) {
+        var contribution = new Contribution(
+                phraseKey(SuggestionType.NAME, document.name()), document.name(),
+                phraseKey(SuggestionType.BRAND, document.brand()), document.brand(),
+                1L + document.ratingCount());
+        lock.writeLock().lock();
+        try {
+            var previous = contributionsByProductId.put(document.id(), contribution);
+            if (contribution.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                withdraw(previous);
+            }
+            contribute(SuggestionType.NAME, contribution.nameKey(), contribution.name(), contribution.weight());
+            contribute(SuggestionType.BRAND, contribution.brandKey(), contribution.brand(), contribution.weight());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            var previous = contributionsByProductId.remove(productId);
+            if (previous != null) {
+                withdraw(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            suggestionsByKey.clear();
+            contributionsByProductId.clear();
+            root = new Node("");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the most popular names and brands starting with the given prefix, or containing a word starting with it.
+     *
+     * @param prefix the typed text
+     * @param limit  the maximum number of suggestions, at most {@value #TOP_K}
+     * @return the suggestions, most popular first
+     */
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        var key = String.join(" ", Tokenizer.tokenize(prefix));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        if (!Character.isLetterOrDigit(prefix.charAt(prefix.length() - 1))) {
+            key = key + " ";
+        }
+        lock.readLock().lock();
+        try {
+            var node = find(key);
+            if (node == null) {
+                return List.of();
+            }
+            return Arrays.stream(node.top)
+                    .limit(Math.min(limit, TOP_K))
+                    .map(s -> new SuggestionDto(s.text, s.type, s.weight))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void contribute(SuggestionType type, String key, String text, long weight) {
+        if (key == null) {
+            return;
+        }
+        var suggestion = suggestionsByKey.get(key);
+        if (suggestion == null) {
+            suggestion = new Suggestion(type, key, text.trim());
+            suggestionsByKey.put(key, suggestion);
+            suggestion.weight = weight;
+            for (String trieKey : trieKeys(suggestion)) {
+                insert(trieKey, suggestion);
+            }
+        } else {
+            suggestion.weight += weight;
+            for (String trieKey : trieKeys(suggestion)) {
+                refresh(trieKey);
+            }
+        }
+    }
+
+    private void withdraw(Contribution contribution) {
+        withdraw(contribution.nameKey(), contribution.weight());
+        withdraw(contribution.brandKey(), contribution.weight());
+    }
+
+    private void withdraw(String key, long weight) {
+        if (key == null) {
+            return;
+        }
+        var suggestion = suggestionsByKey.get(key);
+        suggestion.weight -= weight;
+        if (suggestion.weight <= 0) {
+            suggestionsByKey.remove(key);
+            for (String trieKey : trieKeys(suggestion)) {
+                delete(trieKey, suggestion);
+            }
+        } else {
+            for (String trieKey : trieKeys(suggestion)) {
+                refresh(trieKey);
+            }
+        }
+    }
+
+    private void insert(String key, Suggestion suggestion) {
+        var path = new ArrayList<Node>();
+        var node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.childIndex(key.charAt(i));
+            if (index < 0) {
+                var leaf = new Node(key.substring(i));
+                node.addChild(-index - 1, leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            var child = node.children[index];
+            int common = commonPrefixLength(child.label, key, i);
+            if (common < child.label.length()) {
+                var middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.addChild(0, child);
+                middle.top = child.top;
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        node.addTerminal(suggestion);
+        recomputeTops(path);
+    }
+
+    private void delete(String key, Suggestion suggestion) {
+        var path = pathTo(key);
+        if (path == null) {
+            return;
+        }
+        var node = path.get(path.size() - 1);
+        node.removeTerminal(suggestion);
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            var current = path.get(depth);
+            var parent = path.get(depth - 1);
+            if (current.terminals == null && current.children.length == 0) {
+                parent.removeChild(current);
+                path.remove(depth);
+            } else if (current.terminals == null && current.children.length == 1) {
+                var onlyChild = current.children[0];
+                onlyChild.label = current.label + onlyChild.label;
+                parent.children[parent.childIndex(current.label.charAt(0))] = onlyChild;
+                path.set(depth, onlyChild);
+                path.subList(depth + 1, path.size()).clear();
+            }
+        }
+        recomputeTops(path);
+    }
+
+    private void refresh(String key) {
+        var path = pathTo(key);
+        if (path != null) {
+            recomputeTops(path);
+        }
+    }
+
+    private List<Node> pathTo(String key) {
+        var path = new ArrayList<Node>();
+        var node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.childIndex(key.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            if (!key.startsWith(node.label, i)) {
+                return null;
+            }
+            path.add(node);
+            i += node.label.length();
+        }
+        return path;
+    }
+
+    /**
+     * Finds the node whose subtree holds all keys starting with the given prefix, which may end inside an edge label.
+     */
+    private Node find(String prefix) {
+        var node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(i));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            int common = commonPrefixLength(node.label, prefix, i);
+            if (i + common == prefix.length()) {
+                return node;
+            }
+            if (common < node.label.length()) {
+                return null;
+            }
+            i += common;
+        }
+        return node;
+    }
+
+    private static void recomputeTops(List<Node> path) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            path.get(depth).recomputeTop();
+        }
+    }
+
+    private static List<String> trieKeys(Suggestion suggestion) {
+        var words = suggestion.key.substring(suggestion.key.indexOf(':') + 1).split(" ");
+        int starts = suggestion.type == SuggestionType.NAME ? Math.min(words.length, MAX_NAME_SUFFIXES) : 1;
+        var keys = new LinkedHashSet<String>();
+        for (int i = 0; i < starts; i++) {
+            keys.add(String.join(" ", Arrays.copyOfRange(words, i, words.length)));
+        }
+        return List.copyOf(keys);
+    }
+
+    private static String phraseKey(SuggestionType type, String text) {
+        var phrase = String.join(" ", Tokenizer.tokenize(text));
+        return phrase.isEmpty() ? null : type.name() + ":" + phrase;
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int length = 0;
+        while (length < max && label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private record Contribution(String nameKey, String name, String brandKey, String brand, long weight) {
+    }
+
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        String label;
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        List<Suggestion> terminals;
+        Suggestion[] top = NO_SUGGESTIONS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            return Arrays.binarySearch(keys, c);
+        }
+
+        void addChild(int position, Node child) {
+            var newKeys = new char[keys.length + 1];
+            var newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            newKeys[position] = child.label.charAt(0);
+            newChildren[position] = child;
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        void removeChild(Node child) {
+            int position = childIndex(child.label.charAt(0));
+            var newKeys = new char[keys.length - 1];
+            var newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+            System.arraycopy(children, position + 1, newChildren, position, children.length - position - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        void addTerminal(Suggestion suggestion) {
+            if (terminals == null) {
+                terminals = new ArrayList<>(1);
+            }
+            if (!terminals.contains(suggestion)) {
+                terminals.add(suggestion);
+            }
+        }
+
+        void removeTerminal(Suggestion suggestion) {
+            if (terminals != null) {
+                terminals.remove(suggestion);
+                if (terminals.isEmpty()) {
+                    terminals = null;
+                }
+            }
+        }
+
+        void recomputeTop() {
+            var candidates = new LinkedHashSet<Suggestion>();
+            if (terminals != null) {
+                candidates.addAll(terminals);
+            }
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            top = candidates.stream()
+                    .sorted(BY_POPULARITY)
+                    .limit(TOP_K)
+                    .toArray(Suggestion[]::new);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package tech.nuqta.handihub.product.index.suggest;
+
+/**
+ * A phrase that can be suggested, with its accumulated popularity.
+ * <p>
+ * Instances are owned by {@link ProductSuggester} and only mutated under its write lock.
+ */
+final class Suggestion {
+    final SuggestionType type;
+    final String key;
+    final String text;
+    long weight;
+
+    Suggestion(SuggestionType type, String key, String text) {
+        this.type = type;
+        this.key = key;
+        this.text = text;
+    }
+}
@@ -0,0 +1,9 @@
+package tech.nuqta.handihub.product.index.suggest;
+
+/**
+ * The product field a suggestion comes from.
+ */
+public enum SuggestionType {
+    NAME,
+    BRAND
+}
@@ -0,0 +1,69 @@
+package tech.nuqta.handihub.product.related;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts, for every product, how many checked out carts contained it together with each other product.
+ * <p>
+ * Each product has its own {@link LongIntCounter} of neighbours, guarded by the counter's monitor, so baskets
+ * touching different products are recorded concurrently.
+ */
+final class CoPurchaseModel {
+    private final Map<Long, LongIntCounter> neighboursByProductId = new ConcurrentHashMap<>();
+    private final int maxBasketSize;
+
+    CoPurchaseModel(int maxBasketSize) {
+        this.maxBasketSize = maxBasketSize;
+    }
+
+    /**
+     * Records that the given products were bought together; only the first products of very large baskets count.
+     */
+    void record(Collection<Long> productIds) {
+        var basket = new LinkedHashSet<>(productIds).stream().limit(maxBasketSize).mapToLong(Long::longValue).toArray();
+        if (basket.length < 2) {
+            return;
+        }
+        for (long productId : basket) {
+            var neighbours = neighboursByProductId.computeIfAbsent(productId, id -> new LongIntCounter());
+            synchronized (neighbours) {
+                for (long other : basket) {
+                    if (other != productId) {
+                        neighbours.increment(other, 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of the products most often bought with the given product, most often first.
+     */
+    long[] related(Long productId, int limit) {
+        var neighbours = neighboursByProductId.get(productId);
+        if (neighbours == null) {
+            return new long[0];
+        }
+        synchronized (neighbours) {
+            return neighbours.top(limit);
+        }
+    }
+
+    /**
+     * Keeps only the {@code maxNeighbours} most frequent neighbours of every product.
+     */
+    void prune(int maxNeighbours) {
+        neighboursByProductId.values().forEach(neighbours -> {
+            synchronized (neighbours) {
+                neighbours.retainTop(maxNeighbours);
+            }
+        });
+    }
+
+    int size() {
+        return neighboursByProductId.size();
+    }
+}
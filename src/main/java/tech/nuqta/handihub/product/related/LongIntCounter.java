@@ -0,0 +1,176 @@
+package tech.nuqta.handihub.product.related;
+
+/**
+ * A counter of positive long keys backed by two primitive arrays with open addressing and linear probing.
+ * <p>
+ * It stores a key and its count in 12 bytes, without boxing or per-entry objects. Zero marks an empty slot,
+ * so zero cannot be used as a key. Not thread-safe.
+ */
+final class LongIntCounter {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    LongIntCounter() {
+        this(8);
+    }
+
+    private LongIntCounter(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    void increment(long key, int delta) {
+        int slot = slot(keys, key);
+        if (keys[slot] == key) {
+            counts[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize(keys.length * 2);
+        }
+    }
+
+    int get(long key) {
+        int slot = slot(keys, key);
+        return keys[slot] == key ? counts[slot] : 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns up to {@code limit} keys with the highest counts, highest first; equal counts are ordered by key.
+     */
+    long[] top(int limit) {
+        var slots = topSlots(limit);
+        var top = new long[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            top[i] = keys[slots[i]];
+        }
+        return top;
+    }
+
+    /**
+     * Drops all but the {@code limit} keys with the highest counts.
+     */
+    void retainTop(int limit) {
+        if (size <= limit) {
+            return;
+        }
+        var slots = topSlots(limit);
+        var retainedKeys = keys;
+        var retainedCounts = counts;
+        keys = new long[capacityFor(limit)];
+        counts = new int[keys.length];
+        size = 0;
+        for (int slot : slots) {
+            increment(retainedKeys[slot], retainedCounts[slot]);
+        }
+    }
+
+    /**
+     * Returns the slots of up to {@code limit} keys with the highest counts, highest first; equal counts are ordered
+     * by key. The candidates go through a heap of {@code limit} slots with the lowest ranked at its root, so only the
+     * selected slots are ever sorted.
+     */
+    private int[] topSlots(int limit) {
+        int length = Math.min(limit, size);
+        var heap = new int[Math.max(0, length)];
+        int n = 0;
+        for (int slot = 0; slot < keys.length && heap.length > 0; slot++) {
+            if (keys[slot] == 0) {
+                continue;
+            }
+            if (n < heap.length) {
+                heap[n] = slot;
+                siftUp(heap, n++);
+            } else if (ranksAbove(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, 0, heap.length);
+            }
+        }
+        for (int end = heap.length - 1; end > 0; end--) {
+            int lowest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = lowest;
+            siftDown(heap, 0, end);
+        }
+        return heap;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], slot)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private void siftDown(int[] heap, int index, int length) {
+        int slot = heap[index];
+        int child;
+        while ((child = 2 * index + 1) < length) {
+            if (child + 1 < length && ranksAbove(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!ranksAbove(slot, heap[child])) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    private boolean ranksAbove(int slot, int other) {
+        return counts[slot] != counts[other] ? counts[slot] > counts[other] : keys[slot] < keys[other];
+    }
+
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = 8;
+        while (capacity * LOAD_FACTOR < entries + 1) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static long mix(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
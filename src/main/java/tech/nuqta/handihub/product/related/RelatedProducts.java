@@ -0,0 +1,176 @@
+package tech.nuqta.handihub.product.related;
+
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tech.nuqta.handihub.cart.dto.projection.CartProductRow;
+import tech.nuqta.handihub.cart.event.CartCheckedOutEvent;
+import tech.nuqta.handihub.cart.repository.CartRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * The RelatedProducts class serves "customers also bought" lists from an in-memory co-purchase model.
+ * <p>
+ * Every committed {@link CartCheckedOutEvent} adds its basket to the model, and a scheduled job prunes each product
+ * to its most frequent neighbours so memory stays bounded. At startup the model is rebuilt from all checked out
+ * carts: the cart id range is split into batches that are loaded and counted on a dedicated pool in parallel.
+ * Checkouts committed while a rebuild runs are counted into the old model and buffered by cart id. Carts are not
+ * checked out in id order, so a buffered checkout may belong to a batch scanned before or after its commit: before
+ * the new model is swapped in, the buffered checkouts whose cart the scan did not count are replayed into it, so
+ * none is lost or counted twice.
+ */
+@Slf4j
+@Component
+public class RelatedProducts {
+    private final CartRepository cartRepository;
+    private final int maxNeighbours;
+    private final int maxBasketSize;
+    private final int rebuildParallelism;
+    private final int rebuildBatchSize;
+    private final Object lock = new Object();
+    private volatile CoPurchaseModel model;
+    private Rebuild rebuild;
+
+    public RelatedProducts(CartRepository cartRepository,
+                           @Value("${application.related.max-neighbours:50}") int maxNeighbours,
+                           @Value("${application.related.max-basket-size:100}") int maxBasketSize,
+                           @Value("${application.related.rebuild.parallelism:4}") int rebuildParallelism,
+                           @Value("${application.related.rebuild.batch-size:1000}") int rebuildBatchSize) {
+        this.cartRepository = cartRepository;
+        this.maxNeighbours = maxNeighbours;
+        this.maxBasketSize = maxBasketSize;
+        this.rebuildParallelism = rebuildParallelism;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.model = new CoPurchaseModel(maxBasketSize);
+    }
+
+    /**
+     * Returns the ids of the products most often bought together with the given product.
+     *
+     * @param productId the product id
+     * @param limit     the maximum number of ids, at most the configured number of kept neighbours
+     * @return the product ids, most often bought together first
+     */
+    public List<Long> related(Long productId, int limit) {
+        return LongStream.of(model.related(productId, Math.min(limit, maxNeighbours))).boxed().toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartCheckedOut(CartCheckedOutEvent event) {
+        synchronized (lock) {
+            model.record(event.productIds());
+            if (rebuild != null) {
+                rebuild.checkouts().put(event.cartId(), event.productIds());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.related.prune-interval:PT10M}",
+            initialDelayString = "${application.related.prune-interval:PT10M}")
+    public void prune() {
+        model.prune(maxNeighbours);
+    }
+
+    /**
+     * Rebuilds the model from all checked out carts and swaps it in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        var target = new Rebuild(new CoPurchaseModel(maxBasketSize), cartRepository.findMaxId().orElse(0L),
+                new Roaring64Bitmap(), new LinkedHashMap<>());
+        synchronized (lock) {
+            if (rebuild != null) {
+                log.warn("Related products rebuild already running, skipped");
+                return;
+            }
+            rebuild = target;
+        }
+        try {
+            long batches = (target.lastCartId() + rebuildBatchSize - 1) / rebuildBatchSize;
+            var pool = new ForkJoinPool(rebuildParallelism);
+            try {
+                pool.submit(() -> LongStream.range(0, batches).parallel().forEach(batch -> {
+                    long afterId = batch * rebuildBatchSize;
+                    long toId = Math.min(afterId + rebuildBatchSize, target.lastCartId());
+                    var scanned = recordBaskets(target.model(), cartRepository.findCheckedOutCartProducts(afterId, toId));
+                    synchronized (target.scannedCartIds()) {
+                        target.scannedCartIds().or(scanned);
+                    }
+                })).join();
+            } finally {
+                pool.shutdown();
+            }
+            int replayed;
+            synchronized (lock) {
+                replayed = replayCheckouts(target);
+                model = target.model();
+            }
+            target.model().prune(maxNeighbours);
+            log.info("Related products rebuilt for {} products from carts up to id {} and {} later checkouts in {} ms",
+                    target.model().size(), target.lastCartId(), replayed, System.currentTimeMillis() - start);
+        } finally {
+            synchronized (lock) {
+                rebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Records the checkouts buffered during the rebuild whose cart was committed too late for the scan to count it;
+     * must be called under the lock.
+     *
+     * @return the number of checkouts replayed
+     */
+    private static int replayCheckouts(Rebuild target) {
+        int replayed = 0;
+        for (Map.Entry<Long, List<Long>> checkout : target.checkouts().entrySet()) {
+            if (!target.scannedCartIds().contains(checkout.getKey())) {
+                target.model().record(checkout.getValue());
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Records the baskets of rows ordered by cart id.
+     *
+     * @return the ids of the carts recorded
+     */
+    private static Roaring64Bitmap recordBaskets(CoPurchaseModel model, List<CartProductRow> rows) {
+        var cartIds = new Roaring64Bitmap();
+        var basket = new ArrayList<Long>();
+        Long cartId = null;
+        for (CartProductRow row : rows) {
+            if (!row.cartId().equals(cartId)) {
+                model.record(basket);
+                basket.clear();
+                cartId = row.cartId();
+                cartIds.addLong(cartId);
+            }
+            basket.add(row.productId());
+        }
+        model.record(basket);
+        return cartIds;
+    }
+
+    /**
+     * @param scannedCartIds the carts counted by the scan
+     * @param checkouts      the products of the carts checked out during the rebuild, by cart id; guarded by the lock
+     */
+    private record Rebuild(CoPurchaseModel model, long lastCartId, Roaring64Bitmap scannedCartIds,
+                           Map<Long, List<Long>> checkouts) {
+    }
+}
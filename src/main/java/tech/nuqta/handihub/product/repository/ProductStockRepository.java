@@ -0,0 +1,78 @@
+package tech.nuqta.handihub.product.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import tech.nuqta.handihub.order.entity.OrderLine;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ProductStockRepository class changes product stock with plain JDBC batches. Every change also sets the
+ * modification time, so other instances pick it up when they reconcile their indexes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductStockRepository {
+    private static final String DECREMENT_SQL = "UPDATE products SET quantity = quantity - ?, updated_at = ? " +
+            "WHERE id = ? AND quantity >= ? AND is_enabled = true AND is_deleted = false";
+    private static final String REPLACE_SQL = "UPDATE products SET quantity = ?, updated_at = ? " +
+            "WHERE id = ? AND quantity = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the units in stock of the given products.
+     *
+     * @return the stock by product id, without the products that do not exist
+     */
+    public Map<Long, Integer> findStock(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        var stock = new HashMap<Long, Integer>();
+        jdbcTemplate.query("SELECT id, quantity FROM products WHERE id IN (" + String.join(",", Collections.nCopies(productIds.size(), "?")) + ")",
+                (RowCallbackHandler) row -> stock.put(row.getLong(1), row.getInt(2)), productIds.toArray());
+        return stock;
+    }
+
+    /**
+     * Sets the units in stock of a product, unless its stock changed since it was read.
+     *
+     * @param expected the units in stock when the product was read
+     * @return whether the stock was set
+     */
+    public boolean replaceStock(Long productId, int expected, int quantity) {
+        return jdbcTemplate.update(REPLACE_SQL, quantity, LocalDateTime.now(), productId, expected) == 1;
+    }
+
+    /**
+     * Takes the ordered units of all lines out of stock in a single batch of conditional updates. A line is only
+     * decremented if its product is available with enough units, so the stock never goes negative even when
+     * checkouts race; the caller must roll back if any line was rejected. The lines should be sorted by product id,
+     * so concurrent checkouts lock the product rows in the same order and cannot deadlock.
+     *
+     * @param lines the order lines
+     * @return the ids of the products that lacked stock, empty if every line was decremented
+     */
+    public List<Long> decrementStock(List<OrderLine> lines) {
+        var now = LocalDateTime.now();
+        var counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, lines.stream()
+                .map(line -> new Object[]{line.quantity(), now, line.productId(), line.quantity()})
+                .toList());
+        var rejected = new ArrayList<Long>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                rejected.add(lines.get(i).productId());
+            }
+        }
+        return rejected;
+    }
+}
@@ -1,16 +1,158 @@
 package tech.nuqta.handihub.product.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.product.dto.projection.ProductImageRow;
+import tech.nuqta.handihub.product.dto.projection.ProductListingRow;
+import tech.nuqta.handihub.product.dto.projection.ProductRatingRow;
 import tech.nuqta.handihub.product.entity.ProductEntity;
+import tech.nuqta.handihub.product.index.ProductDocument;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductsRepository extends JpaRepository<ProductEntity, Long> {
+    String LISTING_SELECT = "SELECT new tech.nuqta.handihub.product.dto.projection.ProductListingRow(" +
+            "p.id, p.createdAt, p.updatedAt, p.createdBy, p.modifiedBy, p.name, p.sku, p.brand, p.weight, p.dimensions, " +
+            "p.isEnabled, p.isFeatured, p.isHandmade, p.madeToOrder, p.price, p.quantity, p.user.id, p.category.id, " +
+            "p.ratingSum, p.ratingCount) " +
+            "FROM ProductEntity p ";
+    String DOCUMENT_SELECT = "SELECT new tech.nuqta.handihub.product.index.ProductDocument(" +
+            "p.id, p.name, p.brand, p.sku, p.description, p.category.id, p.price, " +
+            "p.isHandmade, p.isFeatured, p.madeToOrder, p.ratingSum, p.ratingCount) " +
+            "FROM ProductEntity p ";
+    String AVAILABLE = "p.isEnabled = true and p.quantity > 0 and p.isDeleted = false";
+    String RATING_SELECT = "SELECT new tech.nuqta.handihub.product.dto.projection.ProductRatingRow(" +
+            "p.id, p.category.id, p.name, p.ratingSum, p.ratingCount, " +
+            "p.rating1Count, p.rating2Count, p.rating3Count, p.rating4Count, p.rating5Count) " +
+            "FROM ProductEntity p ";
 
     @Override
-    @Query("SELECT p FROM ProductEntity p WHERE p.isEnabled = true and p.quantity > 0 and p.isDeleted = false")
+    @Query("SELECT p FROM ProductEntity p WHERE p.id = :id and p.isEnabled = true and p.quantity > 0 and p.isDeleted = false")
     Optional<ProductEntity> findById(Long id);
 
+    @Query("SELECT p FROM ProductEntity p WHERE p.id IN :ids and " + AVAILABLE)
+    List<ProductEntity> findAllAvailableByIdIn(@Param("ids") Collection<Long> ids);
 
-}
\ No newline at end of file
+    /**
+     * Loads an available product together with its images, so that the result can be mapped outside a session.
+     */
+    @Query("SELECT p FROM ProductEntity p LEFT JOIN FETCH p.images " +
+            "WHERE p.id = :id and p.isEnabled = true and p.quantity > 0 and p.isDeleted = false")
+    Optional<ProductEntity> findDetailById(@Param("id") Long id);
+
+    @Query(value = LISTING_SELECT, countQuery = "SELECT count(p) FROM ProductEntity p")
+    Page<ProductListingRow> findListingPage(Pageable pageable);
+
+    @Query(LISTING_SELECT + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListingRow> findFirstListingKeysetPage(Pageable limit);
+
+    @Query(LISTING_SELECT +
+            "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListingRow> findListingKeysetPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable limit);
+
+    @Query("SELECT new tech.nuqta.handihub.product.dto.projection.ProductImageRow(p.id, i) " +
+            "FROM ProductEntity p JOIN p.images i WHERE p.id IN :ids")
+    List<ProductImageRow> findImagesByProductIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Adds a rating to the aggregates of an available product in a single atomic statement.
+     * The modification time is set as well, so other instances pick up the change when they reconcile their indexes.
+     *
+     * @return the number of updated rows, 0 if the product is not available
+     */
+    @Modifying
+    @Query("UPDATE ProductEntity p SET p.ratingSum = p.ratingSum + :rating, p.ratingCount = p.ratingCount + 1, " +
+            "p.rating1Count = p.rating1Count + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "p.rating2Count = p.rating2Count + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "p.rating3Count = p.rating3Count + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "p.rating4Count = p.rating4Count + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "p.rating5Count = p.rating5Count + CASE WHEN :rating = 5 THEN 1 ELSE 0 END, p.updatedAt = :now " +
+            "WHERE p.id = :id and p.isEnabled = true and p.quantity > 0 and p.isDeleted = false")
+    int addRating(@Param("id") Long id, @Param("rating") int rating, @Param("now") LocalDateTime now);
+
+    /**
+     * Removes a rating from the aggregates of a product in a single atomic statement.
+     *
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE ProductEntity p SET p.ratingSum = p.ratingSum - :rating, p.ratingCount = p.ratingCount - 1, " +
+            "p.rating1Count = p.rating1Count - CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "p.rating2Count = p.rating2Count - CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "p.rating3Count = p.rating3Count - CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "p.rating4Count = p.rating4Count - CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "p.rating5Count = p.rating5Count - CASE WHEN :rating = 5 THEN 1 ELSE 0 END, p.updatedAt = :now " +
+            "WHERE p.id = :id and p.ratingCount > 0")
+    int removeRating(@Param("id") Long id, @Param("rating") int rating, @Param("now") LocalDateTime now);
+
+    /**
+     * Streams all available products, oldest first, for building the in-memory indexes; must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(DOCUMENT_SELECT + "WHERE " + AVAILABLE + " ORDER BY p.id")
+    Stream<ProductDocument> streamAllDocuments();
+
+    @Query(DOCUMENT_SELECT + "WHERE p.id = :id and " + AVAILABLE)
+    Optional<ProductDocument> findDocumentById(@Param("id") Long id);
+
+    /**
+     * Returns the ids of all products created or modified after the given time, whether still available or not.
+     */
+    @Query("SELECT p.id FROM ProductEntity p WHERE coalesce(p.updatedAt, p.createdAt) > :since")
+    List<Long> findIdsChangedSince(@Param("since") LocalDateTime since);
+
+    @Query(RATING_SELECT + "WHERE p.id = :id and p.isEnabled = true and p.isDeleted = false")
+    Optional<ProductRatingRow> findRatingRow(@Param("id") Long id);
+
+    @Query(RATING_SELECT + "WHERE p.ratingCount > 0 and p.isEnabled = true and p.isDeleted = false")
+    List<ProductRatingRow> findAllRatedRows();
+
+    /**
+     * Recomputes the aggregates of products whose histogram does not add up to their rating count,
+     * i.e. products rated before the exact sum and the histogram were stored.
+     *
+     * @return the number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE ProductEntity p SET " +
+            "p.ratingSum = (SELECT coalesce(sum(r.rating), 0) FROM Rating r WHERE r.product.id = p.id), " +
+            "p.ratingCount = (SELECT count(r) FROM Rating r WHERE r.product.id = p.id), " +
+            "p.rating1Count = (SELECT count(r) FROM Rating r WHERE r.product.id = p.id and r.rating = 1), " +
+            "p.rating2Count = (SELECT count(r) FROM Rating r WHERE r.product.id = p.id and r.rating = 2), " +
+            "p.rating3Count = (SELECT count(r) FROM Rating r WHERE r.product.id = p.id and r.rating = 3), " +
+            "p.rating4Count = (SELECT count(r) FROM Rating r WHERE r.product.id = p.id and r.rating = 4), " +
+            "p.rating5Count = (SELECT count(r) FROM Rating r WHERE r.product.id = p.id and r.rating = 5) " +
+            "WHERE p.ratingCount <> p.rating1Count + p.rating2Count + p.rating3Count + p.rating4Count + p.rating5Count")
+    int backfillRatingAggregates();
+
+    @Query(value = "SELECT count(*) > 0 FROM information_schema.columns " +
+            "WHERE lower(table_name) = 'products' AND lower(column_name) = 'average_rating'", nativeQuery = true)
+    boolean legacyAverageRatingColumnExists();
+
+    /**
+     * Gives the floating-point average that {@code ratingSum} replaced a default: it is NOT NULL and no longer
+     * written, which would reject new products, while instances of the previous version still read it.
+     */
+    @Modifying
+    @Query(value = "ALTER TABLE products ALTER COLUMN average_rating SET DEFAULT 0", nativeQuery = true)
+    void defaultLegacyAverageRatingColumn();
+
+    /**
+     * Drops the floating-point average that {@code ratingSum} replaced; schema updates never drop columns.
+     */
+    @Modifying
+    @Query(value = "ALTER TABLE products DROP COLUMN IF EXISTS average_rating", nativeQuery = true)
+    void dropLegacyAverageRatingColumn();
+}
@@ -0,0 +1,180 @@
+package tech.nuqta.handihub.product.reservation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * The StockReservations class holds units of stock for the open carts, so that products are not sold twice while
+ * shoppers are still deciding.
+ * <p>
+ * A user holds at most one reservation per product, for the quantity of the cart line, and it lapses after the hold
+ * duration unless the line changes again. The reserved total of each product is kept next to its reservations, so
+ * the stock available to sell is a single lookup. Lapsed holds are expired by a {@link TimingWheel} advanced every
+ * tick, instead of a scheduled task per hold.
+ * <p>
+ * Holds live in memory only: they are lost on restart and not shared between instances. The conditional stock
+ * decrement at checkout stays the guarantee against overselling; holds make a shortage show up when a product is
+ * added to a cart rather than at checkout.
+ */
+@Slf4j
+@Component
+public class StockReservations {
+    private static final int LEVELS = 4;
+
+    private final Map<Long, ProductReservations> products = new ConcurrentHashMap<>();
+    private final TimingWheel<Reservation> wheel;
+    private final long holdMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public StockReservations(@Value("${application.stock.reservation.hold-duration:PT15M}") Duration holdDuration,
+                             @Value("${application.stock.reservation.tick:PT1S}") Duration tick) {
+        this(holdDuration, tick, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock the current time in milliseconds, read when a hold is set and when holds are expired
+     */
+    StockReservations(Duration holdDuration, Duration tick, LongSupplier clock) {
+        this.holdMillis = holdDuration.toMillis();
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(tick.toMillis(), LEVELS, clock.getAsLong());
+    }
+
+    /**
+     * Returns the units of a product that are not held by any cart.
+     *
+     * @param stock the units in stock
+     */
+    public int availableToSell(Long productId, int stock) {
+        var reservations = products.get(productId);
+        return Math.max(0, stock - (reservations == null ? 0 : reservations.reserved));
+    }
+
+    /**
+     * Sets the holds of a user on several products at once, renewing their duration; a quantity of 0 releases the
+     * hold. Either all holds are set or none is.
+     *
+     * @param quantities the quantity to hold by product id
+     * @param stock      the units in stock by product id, needed for every product whose hold grows
+     * @throws AppBadRequestException if a product has fewer units than requested that are not held by other users
+     */
+    public void holdAll(Long userId, Map<Long, Integer> quantities, Map<Long, Integer> stock) {
+        var previous = new LinkedHashMap<Long, Integer>();
+        var outOfStock = new ArrayList<Long>();
+        quantities.forEach((productId, quantity) -> {
+            if (!outOfStock.isEmpty()) {
+                return;
+            }
+            int held = hold(userId, productId, quantity, stock.getOrDefault(productId, 0));
+            if (held < 0) {
+                outOfStock.add(productId);
+            } else {
+                previous.put(productId, held);
+            }
+        });
+        if (!outOfStock.isEmpty()) {
+            previous.forEach((productId, quantity) -> hold(userId, productId, quantity, Integer.MAX_VALUE));
+            throw new AppBadRequestException("Not enough stock for products " + outOfStock);
+        }
+    }
+
+    /**
+     * Releases the holds of a user, once the products are checked out or out of the cart.
+     */
+    public void releaseAll(Long userId, Collection<Long> productIds) {
+        productIds.forEach(productId -> hold(userId, productId, 0, 0));
+    }
+
+    /**
+     * Expires the holds whose duration has passed.
+     */
+    @Scheduled(fixedDelayString = "${application.stock.reservation.tick:PT1S}")
+    public void expire() {
+        var expired = wheel.advance(clock.getAsLong());
+        for (Reservation reservation : expired) {
+            products.computeIfPresent(reservation.productId, (productId, reservations) -> {
+                if (reservations.byUser.get(reservation.userId) == reservation) {
+                    reservations.byUser.remove(reservation.userId);
+                    reservations.reserved -= reservation.quantity;
+                }
+                return reservations.byUser.isEmpty() ? null : reservations;
+            });
+        }
+        if (!expired.isEmpty()) {
+            log.debug("Expired {} stock reservations", expired.size());
+        }
+    }
+
+    /**
+     * Replaces the hold of a user on a product, atomically with the other holds on the product.
+     *
+     * @return the quantity held before, or -1 if the product lacks the units and nothing changed
+     */
+    private int hold(Long userId, Long productId, int quantity, int stock) {
+        int[] previous = {0};
+        var cancelled = new ArrayList<Reservation>(1);
+        products.compute(productId, (id, reservations) -> {
+            if (reservations == null) {
+                if (quantity == 0) {
+                    return null;
+                }
+                reservations = new ProductReservations();
+            }
+            var current = reservations.byUser.get(userId);
+            previous[0] = current == null ? 0 : current.quantity;
+            if (quantity > previous[0] && stock - (reservations.reserved - previous[0]) < quantity) {
+                previous[0] = -1;
+                return reservations.byUser.isEmpty() ? null : reservations;
+            }
+            if (current != null) {
+                reservations.byUser.remove(userId);
+                reservations.reserved -= current.quantity;
+                cancelled.add(current);
+            }
+            if (quantity > 0) {
+                var reservation = new Reservation(userId, productId, quantity);
+                reservation.timeout = wheel.schedule(reservation, clock.getAsLong() + holdMillis);
+                reservations.byUser.put(userId, reservation);
+                reservations.reserved += quantity;
+            }
+            return reservations.byUser.isEmpty() ? null : reservations;
+        });
+        cancelled.forEach(reservation -> reservation.timeout.cancel());
+        return previous[0];
+    }
+
+    /**
+     * The holds on one product; only changed inside {@code compute} on its entry.
+     */
+    private static final class ProductReservations {
+        private final Map<Long, Reservation> byUser = new HashMap<>();
+        private volatile int reserved;
+    }
+
+    private static final class Reservation {
+        private final Long userId;
+        private final Long productId;
+        private final int quantity;
+        private TimingWheel.Timeout<Reservation> timeout;
+
+        private Reservation(Long userId, Long productId, int quantity) {
+            this.userId = userId;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package tech.nuqta.handihub.product.reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The TimingWheel class is a hierarchical timing wheel: timeouts are scheduled and cancelled in O(1), and advancing
+ * the clock by one tick only visits the timeouts due in that tick, however many are pending.
+ * <p>
+ * Level 0 has one bucket per tick; each bucket of level {@code i} spans a whole rotation of level {@code i - 1}.
+ * A timeout is put in the lowest level whose current rotation contains its deadline. When the clock enters the span
+ * of a higher-level bucket, its timeouts are cascaded down, so each timeout moves at most once per level. Deadlines
+ * beyond the top level wait in an overflow list that is cascaded once per top-level rotation.
+ * <p>
+ * Deadlines are rounded up to the next tick. The class is thread safe; expired items are handed back to the caller of
+ * {@link #advance(long)} rather than run under the wheel's lock.
+ *
+ * @param <T> the type of the scheduled items
+ */
+final class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+
+    private final long tickMillis;
+    private final Bucket<T>[][] levels;
+    private final Bucket<T> overflow = new Bucket<>();
+    private long currentTick;
+
+    /**
+     * @param tickMillis the duration of a tick
+     * @param levelCount the number of levels; they cover deadlines up to {@code 64^levelCount} ticks ahead
+     * @param nowMillis  the current time
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int levelCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.levels = new Bucket[levelCount][SIZE];
+        for (Bucket<T>[] level : levels) {
+            for (int i = 0; i < SIZE; i++) {
+                level[i] = new Bucket<>();
+            }
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item; a deadline that has already passed expires on the next tick.
+     *
+     * @return the handle to cancel the timeout
+     */
+    synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        var timeout = new Timeout<>(this, item, Math.max(Math.ceilDiv(deadlineMillis, tickMillis), currentTick + 1));
+        place(timeout);
+        return timeout;
+    }
+
+    /**
+     * Moves the clock to the given time, tick by tick.
+     *
+     * @return the items whose deadline has been reached
+     */
+    synchronized List<T> advance(long nowMillis) {
+        var expired = new ArrayList<T>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            var bucket = levels[0][(int) (currentTick & MASK)];
+            for (var timeout = bucket.poll(); timeout != null; timeout = bucket.poll()) {
+                expired.add(timeout.item);
+            }
+        }
+        return expired;
+    }
+
+    private synchronized void cancel(Timeout<T> timeout) {
+        if (timeout.bucket != null) {
+            timeout.bucket.remove(timeout);
+        }
+    }
+
+    /**
+     * Moves down the timeouts of the higher-level buckets whose span starts at the current tick, highest first.
+     */
+    private void cascade() {
+        if ((currentTick & ((1L << (levels.length * BITS)) - 1)) == 0) {
+            reinsert(overflow);
+        }
+        for (int level = levels.length - 1; level > 0; level--) {
+            int shift = level * BITS;
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                reinsert(levels[level][(int) ((currentTick >>> shift) & MASK)]);
+            }
+        }
+    }
+
+    /**
+     * Places again the timeouts of a bucket, detached first since overflowing deadlines go back to the same one.
+     */
+    private void reinsert(Bucket<T> bucket) {
+        var timeout = bucket.detach();
+        while (timeout != null) {
+            var next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        for (int level = 0; level < levels.length; level++) {
+            int rotationShift = (level + 1) * BITS;
+            if ((timeout.deadlineTick >>> rotationShift) == (currentTick >>> rotationShift)) {
+                levels[level][(int) ((timeout.deadlineTick >>> (level * BITS)) & MASK)].add(timeout);
+                return;
+            }
+        }
+        overflow.add(timeout);
+    }
+
+    /**
+     * A scheduled item, linked into the bucket it waits in.
+     */
+    static final class Timeout<T> {
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadlineTick;
+        private Bucket<T> bucket;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheel<T> wheel, T item, long deadlineTick) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Removes the timeout from the wheel, unless it has already expired.
+         */
+        void cancel() {
+            wheel.cancel(this);
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts, so that a cancelled timeout is unlinked in constant time.
+     */
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.previous = null;
+            timeout.next = head;
+            if (head != null) {
+                head.previous = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Empties the bucket and returns its first timeout; the others stay reachable through {@code next} until placed.
+         */
+        Timeout<T> detach() {
+            var first = head;
+            head = null;
+            for (var timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.bucket = null;
+            }
+            return first;
+        }
+
+        Timeout<T> poll() {
+            var timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
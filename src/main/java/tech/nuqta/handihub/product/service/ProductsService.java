@@ -2,11 +2,22 @@ package tech.nuqta.handihub.product.service;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.web.multipart.MultipartFile;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
+import tech.nuqta.handihub.dto.FacetedProductsDto;
 import tech.nuqta.handihub.dto.ProductDTO;
+import tech.nuqta.handihub.dto.ProductSearchHitDto;
+import tech.nuqta.handihub.dto.ProductSummaryDto;
+import tech.nuqta.handihub.dto.SuggestionDto;
+import tech.nuqta.handihub.dto.TrendingProductDto;
 import tech.nuqta.handihub.product.dto.request.ProductCreateRequest;
 import tech.nuqta.handihub.product.dto.request.ProductUpdateRequest;
+import tech.nuqta.handihub.product.index.ProductSearchFilter;
+import tech.nuqta.handihub.product.index.facet.FacetQuery;
+import tech.nuqta.handihub.product.trending.TrendingWindow;
+
+import java.util.List;
 
 public interface ProductsService {
     ResponseMessage addProduct(ProductCreateRequest request, Authentication connectedUser);
@@ -14,6 +25,12 @@ public interface ProductsService {
     ResponseMessage deleteProduct(Long id, Authentication connectedUser);
     ResponseMessage getProduct(Long id);
     PageResponse<ProductDTO> getProducts(int page, int size);
+    CursorPageResponse<ProductDTO> scrollProducts(String cursor, int size);
+    PageResponse<ProductSearchHitDto> searchProducts(String query, ProductSearchFilter filter, int page, int size);
+    FacetedProductsDto filterProducts(FacetQuery query, int page, int size);
+    List<SuggestionDto> suggestProducts(String prefix, int limit);
+    List<ProductSummaryDto> getRelatedProducts(Long id, int limit);
+    List<TrendingProductDto> getTrendingProducts(TrendingWindow window, int size);
 
 
      ResponseMessage addImages(Long id, MultipartFile[] images, Authentication authentication);
@@ -2,6 +2,7 @@ package tech.nuqta.handihub.product.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -11,20 +12,55 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import tech.nuqta.handihub.category.entity.CategoryEntity;
 import tech.nuqta.handihub.category.repository.CategoryRepository;
+import tech.nuqta.handihub.category.tree.CategoryTreeHolder;
+import tech.nuqta.handihub.common.Cursor;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.exception.ItemNotFoundException;
 import tech.nuqta.handihub.file.ImageUploadService;
 import tech.nuqta.handihub.mapper.ProductMapper;
+import tech.nuqta.handihub.dto.FacetedProductsDto;
 import tech.nuqta.handihub.dto.ProductDTO;
+import tech.nuqta.handihub.dto.ProductSearchHitDto;
+import tech.nuqta.handihub.dto.ProductSummaryDto;
+import tech.nuqta.handihub.dto.SuggestionDto;
+import tech.nuqta.handihub.dto.TrendingProductDto;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+import tech.nuqta.handihub.exception.AppConflictException;
+import tech.nuqta.handihub.product.cache.ProductDetailCache;
+import tech.nuqta.handihub.product.dto.projection.ProductImageRow;
+import tech.nuqta.handihub.product.dto.projection.ProductListingRow;
 import tech.nuqta.handihub.product.dto.request.ProductCreateRequest;
 import tech.nuqta.handihub.product.dto.request.ProductUpdateRequest;
 import tech.nuqta.handihub.product.entity.ProductEntity;
+import tech.nuqta.handihub.product.event.ProductChangedEvent;
+import tech.nuqta.handihub.product.event.ProductChangedEvent.ChangeType;
+import tech.nuqta.handihub.product.index.ProductDocument;
+import tech.nuqta.handihub.product.index.ProductSearchFilter;
+import tech.nuqta.handihub.product.index.Tokenizer;
+import tech.nuqta.handihub.product.index.facet.FacetQuery;
+import tech.nuqta.handihub.product.index.facet.ProductFacetIndex;
+import tech.nuqta.handihub.product.index.search.Bm25SearchIndex;
+import tech.nuqta.handihub.product.index.search.FuzzySearchIndex;
+import tech.nuqta.handihub.product.index.search.SearchResult;
+import tech.nuqta.handihub.product.index.suggest.ProductSuggester;
+import tech.nuqta.handihub.product.related.RelatedProducts;
+import tech.nuqta.handihub.product.reservation.StockReservations;
+import tech.nuqta.handihub.product.trending.TrendingProducts;
+import tech.nuqta.handihub.product.trending.TrendingWindow;
+import tech.nuqta.handihub.product.repository.ProductStockRepository;
 import tech.nuqta.handihub.product.repository.ProductsRepository;
 import tech.nuqta.handihub.user.entity.User;
 import tech.nuqta.handihub.user.repository.UserRepository;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,9 +68,20 @@ import java.util.Optional;
 public class ProductsServiceImpl implements ProductsService {
 
     private final ProductsRepository productsRepository;
+    private final ProductStockRepository productStockRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
     private final ImageUploadService imageUploadService;
+    private final ProductDetailCache productDetailCache;
+    private final Bm25SearchIndex searchIndex;
+    private final FuzzySearchIndex fuzzySearchIndex;
+    private final ProductFacetIndex facetIndex;
+    private final ProductSuggester suggester;
+    private final RelatedProducts relatedProducts;
+    private final TrendingProducts trendingProducts;
+    private final StockReservations stockReservations;
+    private final CategoryTreeHolder categoryTreeHolder;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     @Override
@@ -49,6 +96,7 @@ public class ProductsServiceImpl implements ProductsService {
 
         var product = createProductEntity(request, user, category);
         productsRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ChangeType.CREATED));
         log.info("Product with id {} added by user with id {}", product.getId(), currentUser.getId());
         return new ResponseMessage("Product added successfully");
     }
@@ -67,6 +115,11 @@ public class ProductsServiceImpl implements ProductsService {
         var category = fetchCategoryById(request.categoryId());
         updateProductFields(request, product, category);
         productsRepository.save(product);
+        if (request.quantity() != null && !request.quantity().equals(product.getQuantity())
+                && !productStockRepository.replaceStock(product.getId(), product.getQuantity(), request.quantity())) {
+            throw new AppConflictException("Product stock changed meanwhile, reload the product and try again");
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ChangeType.UPDATED));
         log.info("Product with id {} updated by user with id {}", request.id(), currentUser.getId());
         return new ResponseMessage("Product updated successfully");
     }
@@ -82,6 +135,7 @@ public class ProductsServiceImpl implements ProductsService {
         }
         product.setIsDeleted(true);
         productsRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.DELETED));
         log.info("Product with id {} deleted by user with id {}", id, currentUser.getId());
         return new ResponseMessage("Product deleted successfully");
 
@@ -89,17 +143,20 @@ public class ProductsServiceImpl implements ProductsService {
 
     @Override
     public ResponseMessage getProduct(Long id) {
-        var product = productsRepository.findById(id)
-                .orElseThrow(() -> new ItemNotFoundException("Product not found"));
-        return new ResponseMessage(ProductMapper.toDto(product), "Product retrieved successfully");
+        var product = productDetailCache.get(id);
+        if (product.quantity() != null) {
+            product = product.withAvailableQuantity(stockReservations.availableToSell(id, product.quantity()));
+        }
+        trendingProducts.recordView(id);
+        return new ResponseMessage(product, "Product retrieved successfully");
     }
 
     @Override
     public PageResponse<ProductDTO> getProducts(int page, int size) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by("createdAt").descending());
-        var products = productsRepository.findAll(pageable);
+        var products = productsRepository.findListingPage(pageable);
         return new PageResponse<>(
-                ProductMapper.toDtoList(products.getContent()),
+                toListingDtos(products.getContent()),
                 products.getNumber() + 1,
                 products.getSize(),
                 products.getTotalElements(),
@@ -109,6 +166,83 @@ public class ProductsServiceImpl implements ProductsService {
         );
     }
 
+    @Override
+    public CursorPageResponse<ProductDTO> scrollProducts(String cursor, int size) {
+        var position = Cursor.decode(cursor);
+        var limit = CursorPageResponse.limit(size);
+        var products = position == null
+                ? productsRepository.findFirstListingKeysetPage(limit)
+                : productsRepository.findListingKeysetPageAfter(position.createdAt(), position.id(), limit);
+        return CursorPageResponse.of(products, size, position == null,
+                product -> new Cursor(product.createdAt(), product.id()),
+                this::toListingDtos);
+    }
+
+    @Override
+    public PageResponse<ProductSearchHitDto> searchProducts(String query, ProductSearchFilter filter, int page, int size) {
+        int offset = offsetOf(page, size);
+        var terms = Tokenizer.tokenize(query);
+        if (terms.isEmpty()) {
+            throw new AppBadRequestException("Search query must contain at least one letter or digit");
+        }
+        var predicate = toPredicate(filter);
+        // A term no product contains is most likely misspelled, so the query is matched with typo tolerance instead
+        var result = terms.stream().allMatch(searchIndex::containsTerm)
+                ? SearchResult.empty()
+                : fuzzySearchIndex.search(terms, predicate, offset, size);
+        if (result.totalHits() == 0) {
+            result = searchIndex.search(terms, predicate, offset, size);
+        }
+        return toPage(result.hits().stream().map(ProductMapper::toSearchHitDto).toList(), result.totalHits(), page, size);
+    }
+
+    @Override
+    public FacetedProductsDto filterProducts(FacetQuery query, int page, int size) {
+        var result = facetIndex.query(query, offsetOf(page, size), size);
+        var products = result.documents().stream().map(ProductMapper::toSummaryDto).toList();
+        return new FacetedProductsDto(toPage(products, result.totalHits(), page, size), result.facets());
+    }
+
+    @Override
+    public List<SuggestionDto> suggestProducts(String prefix, int limit) {
+        if (limit < 1 || limit > ProductSuggester.TOP_K) {
+            throw new AppBadRequestException("Limit must be between 1 and " + ProductSuggester.TOP_K);
+        }
+        return suggester.suggest(prefix, limit);
+    }
+
+    @Override
+    public List<ProductSummaryDto> getRelatedProducts(Long id, int limit) {
+        if (limit < 1) {
+            throw new AppBadRequestException("Limit must be positive");
+        }
+        if (facetIndex.findDocument(id).isEmpty()) {
+            throw new ItemNotFoundException("Product not found");
+        }
+        return relatedProducts.related(id, Integer.MAX_VALUE).stream()
+                .map(facetIndex::findDocument)
+                .flatMap(Optional::stream)
+                .limit(limit)
+                .map(ProductMapper::toSummaryDto)
+                .toList();
+    }
+
+    @Override
+    public List<TrendingProductDto> getTrendingProducts(TrendingWindow window, int size) {
+        if (size < 1 || size > trendingProducts.maxSize()) {
+            throw new AppBadRequestException("Size must be between 1 and " + trendingProducts.maxSize());
+        }
+        var trending = new ArrayList<TrendingProductDto>(size);
+        for (TrendingProducts.Trending entry : trendingProducts.top(window, trendingProducts.maxSize())) {
+            facetIndex.findDocument(entry.productId())
+                    .ifPresent(document -> trending.add(ProductMapper.toTrendingDto(document, entry.score())));
+            if (trending.size() == size) {
+                break;
+            }
+        }
+        return trending;
+    }
+
     @Override
     public ResponseMessage addImages(Long productId, MultipartFile[] images, Authentication connectedUser) {
         var currentUser = (User) connectedUser.getPrincipal();
@@ -125,11 +259,59 @@ public class ProductsServiceImpl implements ProductsService {
         }
 
         productsRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.UPDATED));
         log.info("Images added to product with id {} by user with id {}", productId, currentUser.getId());
         return new ResponseMessage("Images added successfully");
     }
 
 
+    /**
+     * Maps a page of listing rows to DTOs, loading the images of the whole page with one batched query.
+     */
+    private List<ProductDTO> toListingDtos(List<ProductListingRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        var ids = rows.stream().map(ProductListingRow::id).toList();
+        Map<Long, List<String>> imagesByProductId = productsRepository.findImagesByProductIds(ids).stream()
+                .collect(Collectors.groupingBy(ProductImageRow::productId,
+                        Collectors.mapping(ProductImageRow::image, Collectors.toList())));
+        return ProductMapper.toListingDtoList(rows, imagesByProductId);
+    }
+
+    /**
+     * Returns the number of matches to skip for a page of an in-memory index, bounded so that the index never ranks
+     * more than {@code Integer.MAX_VALUE} matches.
+     *
+     * @throws AppBadRequestException if the page is not positive, the size is not between 1 and
+     *                                {@link CursorPageResponse#MAX_PAGE_SIZE} or the page is out of range
+     */
+    private static int offsetOf(int page, int size) {
+        if (page < 1 || size < 1 || size > CursorPageResponse.MAX_PAGE_SIZE) {
+            throw new AppBadRequestException("Page must be positive and size between 1 and "
+                    + CursorPageResponse.MAX_PAGE_SIZE);
+        }
+        try {
+            int offset = Math.multiplyExact(page - 1, size);
+            Math.addExact(offset, size);
+            return offset;
+        } catch (ArithmeticException e) {
+            throw new AppBadRequestException("Page is out of range");
+        }
+    }
+
+    private static <T> PageResponse<T> toPage(List<T> content, int totalHits, int page, int size) {
+        int totalPages = (int) (((long) totalHits + size - 1) / size);
+        return new PageResponse<>(content, page, size, totalHits, totalPages, page == 1, page >= totalPages);
+    }
+
+    private Predicate<ProductDocument> toPredicate(ProductSearchFilter filter) {
+        var categoryIds = filter.categoryId() == null
+                ? Set.<Long>of()
+                : categoryTreeHolder.get().subtreeIds(filter.categoryId());
+        return filter.toPredicate(categoryIds);
+    }
+
     private static ProductEntity createProductEntity(ProductCreateRequest request, User user, CategoryEntity category) {
         var product = new ProductEntity();
         product.setName(request.name());
@@ -160,7 +342,6 @@ public class ProductsServiceImpl implements ProductsService {
         Optional.ofNullable(request.isHandmade()).ifPresent(product::setHandmade);
         Optional.ofNullable(request.madeToOrder()).ifPresent(product::setMadeToOrder);
         Optional.ofNullable(request.price()).ifPresent(product::setPrice);
-        Optional.ofNullable(request.quantity()).ifPresent(product::setQuantity);
         product.setCategory(category);
     }
 
@@ -0,0 +1,65 @@
+package tech.nuqta.handihub.product.trending;
+
+import java.util.Arrays;
+
+/**
+ * A count-min sketch of long keys: {@code depth} rows of {@code width} counters, each row indexed by its own hash.
+ * <p>
+ * An estimate is the minimum of the key's counters, so it never underestimates and overestimates by at most
+ * {@code e / width} of the total count with probability {@code 1 - e^-depth}. Memory is fixed by the dimensions,
+ * whatever the number of distinct keys. Sketches of the same dimensions are linear, so one can be subtracted from
+ * another. Not thread-safe.
+ */
+final class CountMinSketch {
+    private static final long[] SEEDS = {
+            0x9e3779b97f4a7c15L, 0xbf58476d1ce4e5b9L, 0x94d049bb133111ebL, 0xd6e8feb86659fd93L,
+            0xa0761d6478bd642fL, 0xe7037ed1a0b428dbL, 0x8ebc6af09c88c6e3L, 0x589965cc75374cc3L
+    };
+
+    private final int[][] counters;
+    private final int mask;
+
+    CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Depth must be 1-" + SEEDS.length + " and width a power of two");
+        }
+        counters = new int[depth][width];
+        mask = width - 1;
+    }
+
+    void add(long key, int count) {
+        for (int row = 0; row < counters.length; row++) {
+            counters[row][index(key, row)] += count;
+        }
+    }
+
+    int estimate(long key) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < counters.length; row++) {
+            estimate = Math.min(estimate, counters[row][index(key, row)]);
+        }
+        return estimate;
+    }
+
+    void subtract(CountMinSketch other) {
+        for (int row = 0; row < counters.length; row++) {
+            var counts = counters[row];
+            var otherCounts = other.counters[row];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] -= otherCounts[i];
+            }
+        }
+    }
+
+    void clear() {
+        for (int[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    private int index(long key, int row) {
+        long hash = (key ^ SEEDS[row]) * 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 32;
+        return (int) hash & mask;
+    }
+}
@@ -0,0 +1,97 @@
+package tech.nuqta.handihub.product.trending;
+
+import java.util.*;
+
+/**
+ * Tracks the keys with the highest counts over a sliding window.
+ * <p>
+ * The window is a ring of count-min sketches, one per time bucket, plus a sketch of their sum. Adding a key updates
+ * the current bucket and the sum; when a bucket expires its sketch is subtracted from the sum and reused. The heaviest
+ * keys are kept as up to {@code capacity} candidates with their estimated window counts: a key enters when its
+ * estimate exceeds the smallest candidate's, and all candidates are re-estimated when a bucket expires. Memory depends
+ * only on the sketch dimensions, the number of buckets and the capacity. Not thread-safe.
+ */
+final class SlidingHeavyHitters {
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch window;
+    private final long bucketMillis;
+    private final int capacity;
+    private final Map<Long, Integer> candidates = new HashMap<>();
+    private long currentBucket;
+    private long minimumKey;
+    private int minimumCount;
+
+    SlidingHeavyHitters(TrendingWindow window, int depth, int width, int capacity, long nowMillis) {
+        this.buckets = new CountMinSketch[window.buckets()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new CountMinSketch(depth, width);
+        }
+        this.window = new CountMinSketch(depth, width);
+        this.bucketMillis = window.bucket().toMillis();
+        this.capacity = capacity;
+        this.currentBucket = nowMillis / bucketMillis;
+    }
+
+    void add(long key, int count, long nowMillis) {
+        advance(nowMillis);
+        buckets[(int) (currentBucket % buckets.length)].add(key, count);
+        window.add(key, count);
+        int estimate = window.estimate(key);
+        if (candidates.containsKey(key)) {
+            candidates.put(key, estimate);
+            if (key == minimumKey) {
+                findMinimum();
+            }
+        } else if (candidates.size() < capacity) {
+            candidates.put(key, estimate);
+            findMinimum();
+        } else if (estimate > minimumCount) {
+            candidates.remove(minimumKey);
+            candidates.put(key, estimate);
+            findMinimum();
+        }
+    }
+
+    /**
+     * Expires the buckets that left the window by the given time and re-estimates the candidates.
+     *
+     * @return whether any bucket expired
+     */
+    boolean advance(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        if (bucket <= currentBucket) {
+            return false;
+        }
+        long expired = Math.min(bucket - currentBucket, buckets.length);
+        for (long i = 1; i <= expired; i++) {
+            var sketch = buckets[(int) ((currentBucket + i) % buckets.length)];
+            window.subtract(sketch);
+            sketch.clear();
+        }
+        currentBucket = bucket;
+        candidates.replaceAll((key, count) -> window.estimate(key));
+        candidates.values().removeIf(count -> count <= 0);
+        findMinimum();
+        return true;
+    }
+
+    /**
+     * Returns the candidates with their estimated counts, highest first.
+     */
+    List<Map.Entry<Long, Integer>> top() {
+        return candidates.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .toList();
+    }
+
+    private void findMinimum() {
+        minimumCount = Integer.MAX_VALUE;
+        candidates.forEach((key, count) -> {
+            if (count < minimumCount) {
+                minimumCount = count;
+                minimumKey = key;
+            }
+        });
+    }
+}
@@ -0,0 +1,151 @@
+package tech.nuqta.handihub.product.trending;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TrendingProducts class ranks the products with the most views and cart additions over the last hour and day.
+ * <p>
+ * Request threads only offer an activity to a bounded queue and never wait: when the queue is full the activity is
+ * dropped and counted. A single background thread drains the queue into one {@link SlidingHeavyHitters} per
+ * {@link TrendingWindow} and, after each batch, publishes an immutable ranking per window. Reading a rail copies at
+ * most {@code size} entries of the published ranking. Memory is fixed by the configuration, not by the catalog size.
+ */
+@Slf4j
+@Component
+public class TrendingProducts {
+    private static final int BATCH_SIZE = 1024;
+
+    private final BlockingQueue<Activity> queue;
+    private final Map<TrendingWindow, SlidingHeavyHitters> counters = new EnumMap<>(TrendingWindow.class);
+    private final Map<TrendingWindow, List<Trending>> rankings = new EnumMap<>(TrendingWindow.class);
+    private final AtomicLong dropped = new AtomicLong();
+    private final int viewWeight;
+    private final int cartAddWeight;
+    private final int capacity;
+    private final Thread worker;
+
+    public TrendingProducts(@Value("${application.trending.queue-capacity:65536}") int queueCapacity,
+                            @Value("${application.trending.sketch.depth:4}") int depth,
+                            @Value("${application.trending.sketch.width:2048}") int width,
+                            @Value("${application.trending.capacity:100}") int capacity,
+                            @Value("${application.trending.view-weight:1}") int viewWeight,
+                            @Value("${application.trending.cart-add-weight:5}") int cartAddWeight) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.viewWeight = viewWeight;
+        this.cartAddWeight = cartAddWeight;
+        this.capacity = capacity;
+        long now = System.currentTimeMillis();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            counters.put(window, new SlidingHeavyHitters(window, depth, width, capacity, now));
+            rankings.put(window, List.of());
+        }
+        this.worker = Thread.ofPlatform().daemon().name("trending-products").unstarted(this::drain);
+    }
+
+    public void recordView(Long productId) {
+        offer(productId, viewWeight);
+    }
+
+    public void recordCartAdd(Long productId) {
+        offer(productId, cartAddWeight);
+    }
+
+    /**
+     * Returns the trending products of a window.
+     *
+     * @param window the window
+     * @param size   the maximum number of products, at most the configured capacity
+     * @return the products with their weighted activity counts, most active first
+     */
+    public List<Trending> top(TrendingWindow window, int size) {
+        List<Trending> ranking;
+        synchronized (rankings) {
+            ranking = rankings.get(window);
+        }
+        return ranking.subList(0, Math.min(size, ranking.size()));
+    }
+
+    public long droppedActivities() {
+        return dropped.get();
+    }
+
+    public int maxSize() {
+        return capacity;
+    }
+
+    @PostConstruct
+    void start() {
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void offer(Long productId, int weight) {
+        if (productId != null && !queue.offer(new Activity(productId, weight)) && dropped.getAndIncrement() % 10_000 == 0) {
+            log.warn("Trending activity queue is full, {} activities dropped so far", dropped.get());
+        }
+    }
+
+    private void drain() {
+        var batch = new ArrayList<Activity>(BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                var first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+                apply(batch, System.currentTimeMillis());
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Failed to update trending products", e);
+                batch.clear();
+            }
+        }
+    }
+
+    void apply(List<Activity> batch, long nowMillis) {
+        var published = new EnumMap<TrendingWindow, List<Trending>>(TrendingWindow.class);
+        counters.forEach((window, counter) -> {
+            boolean changed = counter.advance(nowMillis);
+            for (Activity activity : batch) {
+                counter.add(activity.productId(), activity.weight(), nowMillis);
+            }
+            if (changed || !batch.isEmpty()) {
+                published.put(window, counter.top().stream()
+                        .map(entry -> new Trending(entry.getKey(), entry.getValue()))
+                        .toList());
+            }
+        });
+        if (!published.isEmpty()) {
+            synchronized (rankings) {
+                rankings.putAll(published);
+            }
+        }
+    }
+
+    /**
+     * A trending product with its weighted activity count over the window.
+     */
+    public record Trending(Long productId, long score) {
+    }
+
+    record Activity(long productId, int weight) {
+    }
+}
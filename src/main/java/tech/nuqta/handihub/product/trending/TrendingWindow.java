@@ -0,0 +1,33 @@
+package tech.nuqta.handihub.product.trending;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * A sliding window of trending activity, made of fixed time buckets that expire one at a time.
+ */
+public enum TrendingWindow {
+    HOUR(Duration.ofMinutes(1), 60),
+    DAY(Duration.ofHours(1), 24);
+
+    private final Duration bucket;
+    private final int buckets;
+
+    TrendingWindow(Duration bucket, int buckets) {
+        this.bucket = bucket;
+        this.buckets = buckets;
+    }
+
+    public static Optional<TrendingWindow> fromName(String name) {
+        return Arrays.stream(values()).filter(window -> window.name().equalsIgnoreCase(name)).findFirst();
+    }
+
+    public Duration bucket() {
+        return bucket;
+    }
+
+    public int buckets() {
+        return buckets;
+    }
+}
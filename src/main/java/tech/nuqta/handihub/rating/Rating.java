@@ -10,7 +10,7 @@ import tech.nuqta.handihub.user.entity.User;
 @Getter
 @Setter
 @Entity
-@Table(name = "ratings")
+@Table(name = "ratings", indexes = @Index(name = "idx_ratings_product_created_at_id", columnList = "product_id, createdAt, id"))
 public class Rating extends BaseEntity {
     private int rating;
     @Column(columnDefinition = "TEXT")
@@ -22,14 +22,4 @@ public class Rating extends BaseEntity {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @PrePersist
-    @PreUpdate
-    private void prePersistOrUpdate() {
-        product.updateRating(this.rating);
-    }
-
-    @PreRemove
-    private void preRemove() {
-        product.updateRatingOnDelete(this.rating);
-    }
 }
\ No newline at end of file
@@ -4,8 +4,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface RatingRepository extends JpaRepository<Rating, Long> {
     @Query("SELECT r FROM Rating r WHERE r.product.id = :productId")
     Page<Rating> findAllByProductId(Pageable pageable, Long productId);
+
+    @Query("SELECT r FROM Rating r WHERE r.product.id = :productId ORDER BY r.createdAt DESC, r.id DESC")
+    List<Rating> findFirstKeysetPage(@Param("productId") Long productId, Pageable limit);
+
+    @Query("SELECT r FROM Rating r WHERE r.product.id = :productId " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Rating> findKeysetPageAfter(@Param("productId") Long productId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Pageable limit);
 }
\ No newline at end of file
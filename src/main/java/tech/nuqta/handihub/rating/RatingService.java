@@ -1,15 +1,28 @@
 package tech.nuqta.handihub.rating;
 
 import org.springframework.security.core.Authentication;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.dto.RatingDto;
+import tech.nuqta.handihub.dto.RatingHistogramDto;
+import tech.nuqta.handihub.dto.TopRatedProductDto;
+
+import java.util.List;
 
 public interface RatingService {
     ResponseMessage rateProduct(RateRequest request, Authentication connectedUser);
 
+    ResponseMessage deleteRating(Long ratingId, Authentication connectedUser);
+
 
     Double getAverageRating(Long productId);
 
+    RatingHistogramDto getRatingHistogram(Long productId);
+
+    List<TopRatedProductDto> getTopRated(Long categoryId, int size);
+
     PageResponse<RatingDto> getAllProductRatings(Long productId, int page, int size);
+
+    CursorPageResponse<RatingDto> scrollProductRatings(Long productId, String cursor, int size);
 }
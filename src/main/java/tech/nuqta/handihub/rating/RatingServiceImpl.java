@@ -2,40 +2,79 @@ package tech.nuqta.handihub.rating;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.nuqta.handihub.common.Cursor;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.dto.RatingDto;
+import tech.nuqta.handihub.dto.RatingHistogramDto;
+import tech.nuqta.handihub.dto.TopRatedProductDto;
 import tech.nuqta.handihub.exception.ItemNotFoundException;
 import tech.nuqta.handihub.mapper.RatingMapper;
+import tech.nuqta.handihub.product.event.ProductChangedEvent;
+import tech.nuqta.handihub.product.event.ProductChangedEvent.ChangeType;
 import tech.nuqta.handihub.product.repository.ProductsRepository;
+import tech.nuqta.handihub.rating.leaderboard.TopRatedLeaderboard;
 import tech.nuqta.handihub.user.entity.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RatingServiceImpl implements RatingService {
     private final RatingRepository ratingRepository;
     private final ProductsRepository productsRepository;
+    private final TopRatedLeaderboard topRatedLeaderboard;
+    private final ApplicationEventPublisher eventPublisher;
 
+    /**
+     * Stores a rating and adds it to the product aggregates with one atomic update, so concurrent ratings
+     * of the same product are never lost. The product row is not read.
+     */
     @Override
+    @Transactional
     public ResponseMessage rateProduct(RateRequest request, Authentication connectedUser) {
-        var product = productsRepository.findById(request.productId())
-                .orElseThrow(() -> new ItemNotFoundException("Product not found"));
+        if (productsRepository.addRating(request.productId(), request.rating(), LocalDateTime.now()) == 0) {
+            throw new ItemNotFoundException("Product not found");
+        }
         var currentUser = (User) connectedUser.getPrincipal();
         Rating rating = new Rating();
         rating.setRating(request.rating());
-        rating.setProduct(product);
+        rating.setComment(request.comment());
+        rating.setProduct(productsRepository.getReferenceById(request.productId()));
         rating.setUser(currentUser);
         ratingRepository.save(rating);
+        eventPublisher.publishEvent(new ProductChangedEvent(request.productId(), ChangeType.RATED));
         log.info("Product with id {} rated by user with id {}", request.productId(), currentUser.getId());
         return new ResponseMessage("Product rated successfully");
     }
 
+    @Override
+    @Transactional
+    public ResponseMessage deleteRating(Long ratingId, Authentication connectedUser) {
+        var rating = ratingRepository.findById(ratingId)
+                .orElseThrow(() -> new ItemNotFoundException("Rating not found"));
+        var currentUser = (User) connectedUser.getPrincipal();
+        if (!rating.getUser().getId().equals(currentUser.getId()) && !currentUser.isAdmin()) {
+            return new ResponseMessage("You are not authorized to delete this rating");
+        }
+        var productId = rating.getProduct().getId();
+        productsRepository.removeRating(productId, rating.getRating(), LocalDateTime.now());
+        ratingRepository.delete(rating);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.RATED));
+        log.info("Rating with id {} deleted by user with id {}", ratingId, currentUser.getId());
+        return new ResponseMessage("Rating deleted successfully");
+    }
+
     @Override
     public Double getAverageRating(Long productId) {
         var product = productsRepository.findById(productId)
@@ -43,6 +82,18 @@ public class RatingServiceImpl implements RatingService {
         return product.getAverageRating();
     }
 
+    @Override
+    public RatingHistogramDto getRatingHistogram(Long productId) {
+        var row = productsRepository.findRatingRow(productId)
+                .orElseThrow(() -> new ItemNotFoundException("Product not found"));
+        return new RatingHistogramDto(row.id(), row.ratingCount(), row.averageRating(), row.starCounts());
+    }
+
+    @Override
+    public List<TopRatedProductDto> getTopRated(Long categoryId, int size) {
+        return topRatedLeaderboard.top(categoryId, size);
+    }
+
     @Override
     public PageResponse<RatingDto> getAllProductRatings(Long productId, int page, int size) {
         Pageable pageable = PageRequest.of(page-1, size, Sort.by("createdAt").descending());
@@ -58,4 +109,16 @@ public class RatingServiceImpl implements RatingService {
         );
     }
 
+    @Override
+    public CursorPageResponse<RatingDto> scrollProductRatings(Long productId, String cursor, int size) {
+        var position = Cursor.decode(cursor);
+        var limit = CursorPageResponse.limit(size);
+        var ratings = position == null
+                ? ratingRepository.findFirstKeysetPage(productId, limit)
+                : ratingRepository.findKeysetPageAfter(productId, position.createdAt(), position.id(), limit);
+        return CursorPageResponse.of(ratings, size, position == null,
+                rating -> new Cursor(rating.getCreatedAt(), rating.getId()),
+                RatingMapper::toDtoList);
+    }
+
 }
@@ -0,0 +1,142 @@
+package tech.nuqta.handihub.rating.leaderboard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tech.nuqta.handihub.category.tree.CategoryTreeHolder;
+import tech.nuqta.handihub.dto.TopRatedProductDto;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+import tech.nuqta.handihub.product.dto.projection.ProductRatingRow;
+import tech.nuqta.handihub.product.event.ProductChangedEvent;
+import tech.nuqta.handihub.product.repository.ProductsRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The TopRatedLeaderboard class serves "top rated" lists per category from memory.
+ * <p>
+ * Products are ranked by a Bayesian average, {@code (C * m + sum) / (C + n)}, which pulls products with few ratings
+ * towards the prior mean {@code m} so that a single five-star rating does not top the list.
+ * Every category keeps its rated products in a sorted set, updated in O(log n) after each committed
+ * {@link ProductChangedEvent}. A list for a category and its subcategories is merged from the heads of their sets
+ * with a bounded heap, in O(S * K log K) for S categories and K entries, regardless of the number of ratings.
+ */
+@Slf4j
+@Component
+public class TopRatedLeaderboard {
+    private static final Comparator<Entry> BY_RANK = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparingLong(Entry::productId);
+
+    private final ProductsRepository productsRepository;
+    private final CategoryTreeHolder categoryTreeHolder;
+    private final double priorMean;
+    private final double priorWeight;
+    private final int maxSize;
+    private final Map<Long, Entry> entriesByProductId = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Entry>> boardsByCategoryId = new ConcurrentHashMap<>();
+
+    public TopRatedLeaderboard(ProductsRepository productsRepository,
+                               CategoryTreeHolder categoryTreeHolder,
+                               @Value("${application.rating.leaderboard.prior-mean:3.0}") double priorMean,
+                               @Value("${application.rating.leaderboard.prior-weight:10}") double priorWeight,
+                               @Value("${application.rating.leaderboard.max-size:100}") int maxSize) {
+        this.productsRepository = productsRepository;
+        this.categoryTreeHolder = categoryTreeHolder;
+        this.priorMean = priorMean;
+        this.priorWeight = priorWeight;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the best rated products of a category and all of its subcategories.
+     *
+     * @param categoryId the category id, or null for all categories
+     * @param size       the number of products to return, capped at the configured maximum
+     * @return the products, best first
+     */
+    public List<TopRatedProductDto> top(Long categoryId, int size) {
+        Collection<Long> categoryIds;
+        if (categoryId == null) {
+            categoryIds = boardsByCategoryId.keySet();
+        } else {
+            categoryIds = categoryTreeHolder.get().subtreeIds(categoryId);
+            if (categoryIds.isEmpty()) {
+                throw new ItemNotFoundException("Category not found");
+            }
+        }
+        int limit = Math.max(1, Math.min(size, maxSize));
+        var worstFirst = new PriorityQueue<Entry>(limit + 1, BY_RANK.reversed());
+        for (Long id : categoryIds) {
+            var board = boardsByCategoryId.get(id);
+            if (board == null) {
+                continue;
+            }
+            int taken = 0;
+            for (Entry entry : board) {
+                if (worstFirst.size() == limit && BY_RANK.compare(entry, worstFirst.peek()) >= 0) {
+                    break;
+                }
+                worstFirst.add(entry);
+                if (worstFirst.size() > limit) {
+                    worstFirst.poll();
+                }
+                if (++taken == limit) {
+                    break;
+                }
+            }
+        }
+        return worstFirst.stream()
+                .sorted(BY_RANK)
+                .map(Entry::toDto)
+                .toList();
+    }
+
+    /**
+     * Rebuilds all boards from the rating aggregates stored on the products.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        var rows = productsRepository.findAllRatedRows();
+        entriesByProductId.clear();
+        boardsByCategoryId.clear();
+        rows.forEach(row -> entriesByProductId.compute(row.id(), (id, previous) -> replace(previous, row)));
+        log.info("Top rated leaderboard built with {} products", entriesByProductId.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        entriesByProductId.compute(event.productId(), (id, previous) ->
+                replace(previous, productsRepository.findRatingRow(id).orElse(null)));
+    }
+
+    private Entry replace(Entry previous, ProductRatingRow row) {
+        if (previous != null) {
+            var board = boardsByCategoryId.get(previous.categoryId());
+            if (board != null) {
+                board.remove(previous);
+            }
+        }
+        if (row == null || row.ratingCount() == 0 || row.categoryId() == null) {
+            return null;
+        }
+        var entry = new Entry(row.id(), row.categoryId(), row.name(), row.ratingSum(), row.ratingCount(),
+                (priorWeight * priorMean + row.ratingSum()) / (priorWeight + row.ratingCount()));
+        boardsByCategoryId.computeIfAbsent(entry.categoryId(), id -> new ConcurrentSkipListSet<>(BY_RANK)).add(entry);
+        return entry;
+    }
+
+    private record Entry(long productId, long categoryId, String name, long ratingSum, int ratingCount, double score) {
+        TopRatedProductDto toDto() {
+            return new TopRatedProductDto(productId, categoryId, name,
+                    (double) ratingSum / ratingCount, ratingCount, score);
+        }
+    }
+}
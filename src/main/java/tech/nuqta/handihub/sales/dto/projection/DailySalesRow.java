@@ -0,0 +1,9 @@
+package tech.nuqta.handihub.sales.dto.projection;
+
+import java.time.LocalDate;
+
+/**
+ * The sales of all products of a vendor on one day, summed from the rollups.
+ */
+public record DailySalesRow(LocalDate day, Long revenueMinor, Long unitsSold) {
+}
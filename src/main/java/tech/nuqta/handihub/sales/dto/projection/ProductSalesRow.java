@@ -0,0 +1,7 @@
+package tech.nuqta.handihub.sales.dto.projection;
+
+/**
+ * The sales of one product over a date range, summed from the rollups.
+ */
+public record ProductSalesRow(Long productId, Long revenueMinor, Long unitsSold) {
+}
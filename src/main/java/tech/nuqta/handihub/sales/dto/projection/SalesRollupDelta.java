@@ -0,0 +1,9 @@
+package tech.nuqta.handihub.sales.dto.projection;
+
+import java.time.LocalDate;
+
+/**
+ * The sales of one product in one order, added to the rollup of its vendor and day.
+ */
+public record SalesRollupDelta(Long vendorId, Long productId, LocalDate day, long revenueMinor, long unitsSold) {
+}
@@ -0,0 +1,35 @@
+package tech.nuqta.handihub.sales.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * The SalesRollup class is the revenue and units sold of one product of a vendor on one day.
+ * <p>
+ * Rows are only written by the {@code SalesRollupJdbcRepository}: incremented once per placed order, or rebuilt
+ * for a whole day from the orders by the backfill. Dashboards read them instead of aggregating the orders.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "sales_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollups_vendor_product_day", columnNames = {"vendor_id", "product_id", "sales_day"}),
+        indexes = @Index(name = "idx_sales_rollups_vendor_day", columnList = "vendor_id, sales_day"))
+public class SalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate day;
+    @Column(nullable = false)
+    private long revenueMinor;
+    @Column(nullable = false)
+    private long unitsSold;
+}
@@ -0,0 +1,96 @@
+package tech.nuqta.handihub.sales.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import tech.nuqta.handihub.sales.dto.projection.SalesRollupDelta;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SalesRollupJdbcRepository class writes the sales rollups with plain JDBC batches.
+ * <p>
+ * An order is counted once: it is flagged as rolled up in the transaction that adds it to the rollups, and both
+ * the incremental path and the backfill only count an order whose flag they set or found set in that transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupJdbcRepository {
+    private static final String INCREMENT_SQL = "UPDATE sales_rollups SET revenue_minor = revenue_minor + ?, " +
+            "units_sold = units_sold + ? WHERE vendor_id = ? AND product_id = ? AND sales_day = ?";
+    private static final String INSERT_SQL = "INSERT INTO sales_rollups (vendor_id, product_id, sales_day, revenue_minor, units_sold) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    private static final String ORDER_DELTAS_SQL = "SELECT p.user_id, l.product_id, o.created_at, " +
+            "SUM(l.quantity * l.unit_price_minor), SUM(l.quantity) " +
+            "FROM orders o JOIN order_lines l ON l.order_id = o.id JOIN products p ON p.id = l.product_id " +
+            "WHERE o.id = ? GROUP BY p.user_id, l.product_id, o.created_at ORDER BY l.product_id";
+    private static final String REBUILD_DAY_SQL = "INSERT INTO sales_rollups (vendor_id, product_id, sales_day, revenue_minor, units_sold) " +
+            "SELECT p.user_id, l.product_id, ?, SUM(l.quantity * l.unit_price_minor), SUM(l.quantity) " +
+            "FROM orders o JOIN order_lines l ON l.order_id = o.id JOIN products p ON p.id = l.product_id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND o.rolled_up = true " +
+            "GROUP BY p.user_id, l.product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Flags an order as rolled up; must run in the transaction that adds its sales.
+     *
+     * @return false if the order was already rolled up, by an earlier attempt or by the backfill
+     */
+    public boolean markRolledUp(Long orderId) {
+        return jdbcTemplate.update("UPDATE orders SET rolled_up = true WHERE id = ? AND rolled_up = false", orderId) == 1;
+    }
+
+    /**
+     * Reads the sales of an order by product, ordered by product id.
+     */
+    public List<SalesRollupDelta> findOrderDeltas(Long orderId) {
+        return jdbcTemplate.query(ORDER_DELTAS_SQL, (row, index) -> new SalesRollupDelta(
+                row.getLong(1),
+                row.getLong(2),
+                row.getTimestamp(3).toLocalDateTime().toLocalDate(),
+                row.getLong(4),
+                row.getLong(5)), orderId);
+    }
+
+    /**
+     * Adds sales to their rollups in a batch of updates, then inserts the rollups that did not exist yet. The
+     * deltas should be sorted by product id, so concurrent orders lock the rollup rows in the same order. A rollup
+     * inserted concurrently fails the insert with a duplicate key, and the caller retries the whole order.
+     */
+    public void increment(List<SalesRollupDelta> deltas) {
+        var counts = jdbcTemplate.batchUpdate(INCREMENT_SQL, deltas.stream()
+                .map(delta -> new Object[]{delta.revenueMinor(), delta.unitsSold(), delta.vendorId(), delta.productId(),
+                        Date.valueOf(delta.day())})
+                .toList());
+        var missing = new ArrayList<Object[]>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                var delta = deltas.get(i);
+                missing.add(new Object[]{delta.vendorId(), delta.productId(), Date.valueOf(delta.day()),
+                        delta.revenueMinor(), delta.unitsSold()});
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, missing);
+        }
+    }
+
+    /**
+     * Rebuilds the rollups of a day from its orders, flagging them as rolled up first so that the incremental path
+     * skips them; must run in a transaction.
+     *
+     * @return the number of rollups written
+     */
+    public int rebuildDay(LocalDate day) {
+        var from = Timestamp.valueOf(day.atStartOfDay());
+        var to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        jdbcTemplate.update("UPDATE orders SET rolled_up = true WHERE created_at >= ? AND created_at < ? AND rolled_up = false", from, to);
+        jdbcTemplate.update("DELETE FROM sales_rollups WHERE sales_day = ?", Date.valueOf(day));
+        return jdbcTemplate.update(REBUILD_DAY_SQL, Date.valueOf(day), from, to);
+    }
+}
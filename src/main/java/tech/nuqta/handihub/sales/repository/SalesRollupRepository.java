@@ -0,0 +1,26 @@
+package tech.nuqta.handihub.sales.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.sales.dto.projection.DailySalesRow;
+import tech.nuqta.handihub.sales.dto.projection.ProductSalesRow;
+import tech.nuqta.handihub.sales.entity.SalesRollup;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    @Query("SELECT new tech.nuqta.handihub.sales.dto.projection.DailySalesRow(r.day, sum(r.revenueMinor), sum(r.unitsSold)) " +
+            "FROM SalesRollup r WHERE r.vendorId = :vendorId and r.day between :from and :to " +
+            "GROUP BY r.day ORDER BY r.day")
+    List<DailySalesRow> findDailySales(@Param("vendorId") Long vendorId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new tech.nuqta.handihub.sales.dto.projection.ProductSalesRow(r.productId, sum(r.revenueMinor), sum(r.unitsSold)) " +
+            "FROM SalesRollup r WHERE r.vendorId = :vendorId and r.day between :from and :to " +
+            "GROUP BY r.productId ORDER BY sum(r.revenueMinor) DESC, r.productId")
+    List<ProductSalesRow> findTopProducts(@Param("vendorId") Long vendorId, @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to, Pageable limit);
+}
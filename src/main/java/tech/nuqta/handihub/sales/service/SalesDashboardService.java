@@ -0,0 +1,12 @@
+package tech.nuqta.handihub.sales.service;
+
+import org.springframework.security.core.Authentication;
+import tech.nuqta.handihub.common.ResponseMessage;
+
+import java.time.LocalDate;
+
+public interface SalesDashboardService {
+    ResponseMessage getDashboard(LocalDate from, LocalDate to, int top, Authentication authentication);
+
+    ResponseMessage startBackfill(LocalDate from, LocalDate to);
+}
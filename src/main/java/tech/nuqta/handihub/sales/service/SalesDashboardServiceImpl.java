@@ -0,0 +1,59 @@
+package tech.nuqta.handihub.sales.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import tech.nuqta.handihub.common.ResponseMessage;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+import tech.nuqta.handihub.exception.AppConflictException;
+import tech.nuqta.handihub.mapper.SalesMapper;
+import tech.nuqta.handihub.sales.repository.SalesRollupRepository;
+import tech.nuqta.handihub.user.entity.User;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+@Service
+@RequiredArgsConstructor
+public class SalesDashboardServiceImpl implements SalesDashboardService {
+    private static final int MAX_DASHBOARD_DAYS = 366;
+    private static final int MAX_TOP_PRODUCTS = 50;
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupBackfill salesRollupBackfill;
+
+    /**
+     * Answers the dashboard of the connected vendor from the rollups, with two grouped queries over at most
+     * one row per product and day.
+     */
+    @Override
+    public ResponseMessage getDashboard(LocalDate from, LocalDate to, int top, Authentication authentication) {
+        checkRange(from, to, MAX_DASHBOARD_DAYS);
+        if (top < 1 || top > MAX_TOP_PRODUCTS) {
+            throw new AppBadRequestException("Top must be between 1 and " + MAX_TOP_PRODUCTS);
+        }
+        var vendor = (User) authentication.getPrincipal();
+        var daily = salesRollupRepository.findDailySales(vendor.getId(), from, to);
+        var topProducts = salesRollupRepository.findTopProducts(vendor.getId(), from, to, PageRequest.ofSize(top));
+        return new ResponseMessage(SalesMapper.toDashboardDto(from, to, daily, topProducts), "Dashboard retrieved successfully");
+    }
+
+    @Override
+    public ResponseMessage startBackfill(LocalDate from, LocalDate to) {
+        checkRange(from, to, Integer.MAX_VALUE);
+        if (!salesRollupBackfill.start(from, to)) {
+            throw new AppConflictException("A sales rollup backfill is already running");
+        }
+        return new ResponseMessage("Sales rollup backfill started");
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to, int maxDays) {
+        if (from.isAfter(to)) {
+            throw new AppBadRequestException("From must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new AppBadRequestException("The range must not exceed " + maxDays + " days");
+        }
+    }
+}
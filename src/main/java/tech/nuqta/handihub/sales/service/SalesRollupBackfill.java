@@ -0,0 +1,115 @@
+package tech.nuqta.handihub.sales.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.nuqta.handihub.sales.repository.SalesRollupJdbcRepository;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The SalesRollupBackfill class rebuilds the sales rollups of a date range from the orders.
+ * <p>
+ * The range is split in halves on a dedicated fork-join pool until partitions are small enough, and each day of a
+ * partition is rebuilt in its own transaction, so days are rebuilt in parallel and a failed day does not undo the
+ * others. Orders placed while a day is rebuilt are either counted by the rebuild or added by the incremental path
+ * afterwards, never both. Only one backfill runs at a time.
+ */
+@Slf4j
+@Component
+public class SalesRollupBackfill {
+    private final SalesRollupJdbcRepository salesRollupJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelism;
+    private final int partitionDays;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public SalesRollupBackfill(SalesRollupJdbcRepository salesRollupJdbcRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${application.sales.rollup.backfill.parallelism:4}") int parallelism,
+                               @Value("${application.sales.rollup.backfill.partition-days:7}") int partitionDays) {
+        this.salesRollupJdbcRepository = salesRollupJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.parallelism = parallelism;
+        this.partitionDays = partitionDays;
+    }
+
+    /**
+     * Starts rebuilding the rollups of the given days in the background.
+     *
+     * @param from the first day
+     * @param to   the last day, inclusive
+     * @return false if a backfill is already running
+     */
+    public boolean start(LocalDate from, LocalDate to) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofPlatform().name("sales-rollup-backfill").start(() -> {
+            try {
+                run(from, to);
+            } catch (RuntimeException e) {
+                log.error("Sales rollup backfill from {} to {} failed", from, to, e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Rebuilds the rollups of the given days and waits for the end.
+     *
+     * @return the number of rollups written
+     */
+    public int run(LocalDate from, LocalDate to) {
+        long start = System.currentTimeMillis();
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            int rollups = pool.invoke(new Partition(from, to));
+            log.info("Sales rollups rebuilt from {} to {}: {} rollups in {} ms",
+                    from, to, rollups, System.currentTimeMillis() - start);
+            return rollups;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * A range of days, split in halves until it has at most {@code partitionDays} days.
+     */
+    private final class Partition extends RecursiveTask<Integer> {
+        private final LocalDate from;
+        private final LocalDate to;
+
+        private Partition(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            if (days <= partitionDays) {
+                int rollups = 0;
+                for (var day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                    var rebuilt = day;
+                    Integer written = transactionTemplate.execute(status -> salesRollupJdbcRepository.rebuildDay(rebuilt));
+                    rollups += written == null ? 0 : written;
+                }
+                return rollups;
+            }
+            var middle = from.plusDays(days / 2 - 1);
+            var left = new Partition(from, middle);
+            left.fork();
+            int right = new Partition(middle.plusDays(1), to).compute();
+            return left.join() + right;
+        }
+    }
+}
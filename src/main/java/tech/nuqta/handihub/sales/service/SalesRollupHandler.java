@@ -0,0 +1,32 @@
+package tech.nuqta.handihub.sales.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tech.nuqta.handihub.enums.OutboxType;
+import tech.nuqta.handihub.outbox.OutboxHandler;
+import tech.nuqta.handihub.outbox.entity.OutboxMessage;
+import tech.nuqta.handihub.sales.repository.SalesRollupJdbcRepository;
+
+/**
+ * Adds a placed order to the sales rollups of its vendors, enqueued by the checkout in the order's transaction.
+ * A retried message, or an order already counted by the backfill, is skipped.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesRollupHandler implements OutboxHandler {
+    private final SalesRollupJdbcRepository salesRollupJdbcRepository;
+
+    @Override
+    public OutboxType type() {
+        return OutboxType.SALES_ROLLUP;
+    }
+
+    @Override
+    @Transactional
+    public void handle(OutboxMessage message) {
+        if (salesRollupJdbcRepository.markRolledUp(message.getAggregateId())) {
+            salesRollupJdbcRepository.increment(salesRollupJdbcRepository.findOrderDeltas(message.getAggregateId()));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,13 +16,20 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
+import tech.nuqta.handihub.enums.RoleName;
+import tech.nuqta.handihub.role.Role;
+import tech.nuqta.handihub.user.entity.User;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * This class represents a filter that allows filtering and processing of JWT tokens in each request.
+ * <p>
+ * When {@code application.security.jwt.principal-from-claims} is enabled, the principal is built from the verified
+ * claims and checked against {@link UserStateCache} instead of being loaded from the database on every request.
  */
 @Component
 @RequiredArgsConstructor
@@ -33,6 +41,10 @@ public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserStateCache userStateCache;
+
+    @Value("${application.security.jwt.principal-from-claims:false}")
+    private boolean principalFromClaims;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws IOException {
@@ -48,9 +60,10 @@ public class JwtFilter extends OncePerRequestFilter {
                 return;
             }
 
-            final String userEmail = jwtService.extractUsername(jwt);
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                processUserAuthentication(request, response, jwt, userEmail);
+            final VerifiedToken token = jwtService.verify(jwt);
+            if (token.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null
+                    && !processUserAuthentication(request, response, token)) {
+                return;
             }
 
             filterChain.doFilter(request, response);
@@ -73,17 +86,65 @@ public class JwtFilter extends OncePerRequestFilter {
         return authHeader.substring(BEARER_PREFIX.length());
     }
 
-    private void processUserAuthentication(HttpServletRequest request, HttpServletResponse response, String jwt, String userEmail) throws IOException {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-        if (!jwtService.isTokenValid(jwt, userDetails)) {
-            writeJsonResponse(response, "Invalid Token");
-            return;
-        }
-        if (jwtService.isRefreshToken(jwt)) {
+    private boolean processUserAuthentication(HttpServletRequest request, HttpServletResponse response, VerifiedToken token) throws IOException {
+        if (token.isRefreshToken()) {
             writeJsonResponse(response, "Refresh Token not allowed!");
-            return;
+            return false;
+        }
+        UserDetails userDetails = resolveUserDetails(token);
+        if (userDetails == null || !jwtService.isTokenValid(token, userDetails)) {
+            writeJsonResponse(response, "Invalid Token");
+            return false;
         }
         setUsernamePasswordAuthenticationToken(request, userDetails);
+        return true;
+    }
+
+    private UserDetails resolveUserDetails(VerifiedToken token) {
+        if (!principalFromClaims || token.userId() == null) {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(token.subject());
+            return isRevoked(token, userDetails) ? null : userDetails;
+        }
+        UserState state = userStateCache.get(token.userId());
+        if (state == null || !state.accepts(token)) {
+            return null;
+        }
+        return buildPrincipal(token);
+    }
+
+    /**
+     * Returns whether the user's OTP version moved on since the token was issued, counting tokens issued before
+     * versioning as version 0.
+     */
+    private static boolean isRevoked(VerifiedToken token, UserDetails userDetails) {
+        return userDetails instanceof User user
+                && Objects.requireNonNullElse(token.tokenVersion(), 0) != user.currentTokenVersion();
+    }
+
+    private static User buildPrincipal(VerifiedToken token) {
+        List<Role> roles = token.authorities().stream()
+                .map(JwtFilter::toRoleName)
+                .filter(Objects::nonNull)
+                .map(roleName -> Role.builder().name(roleName).build())
+                .toList();
+        return User.builder()
+                .id(token.userId())
+                .email(token.subject())
+                .roles(roles)
+                .isAdmin(roles.stream().anyMatch(role -> role.getName() == RoleName.ADMIN))
+                .isVendor(roles.stream().anyMatch(role -> role.getName() == RoleName.VENDOR))
+                .tokenVersion(token.tokenVersion())
+                .enabled(true)
+                .accountLocked(false)
+                .build();
+    }
+
+    private static RoleName toRoleName(String authority) {
+        try {
+            return RoleName.valueOf(authority);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
     private void setUsernamePasswordAuthenticationToken(HttpServletRequest request, UserDetails userDetails) {
@@ -105,7 +166,9 @@ public class JwtFilter extends OncePerRequestFilter {
                 "/configuration/security",
                 "/swagger-ui/**",
                 "/webjars/**",
-                "/swagger-ui.html"
+                "/swagger-ui.html",
+                "/actuator/health",
+                "/actuator/health/**"
         );
         AntPathMatcher pathMatcher = new AntPathMatcher();
         return pathsToSkip.stream().anyMatch(path -> pathMatcher.match(path, request.getServletPath()));
@@ -1,6 +1,7 @@
 package tech.nuqta.handihub.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -8,9 +9,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import tech.nuqta.handihub.user.entity.User;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -19,12 +22,43 @@ import java.util.function.Function;
  */
 @Service
 public class JwtService {
-    @Value("${application.security.jwt.secret-key}")
-    private String secretKey;
-    @Value("${application.security.jwt.expiration}")
-    private long jwtExpiration;
-    @Value("${application.security.jwt.refresh-token.expiration}")
-    private long jwtRefreshExpiration;
+    private final long jwtExpiration;
+    private final long jwtRefreshExpiration;
+    private final Key signInKey;
+    private final JwtParser jwtParser;
+
+    public JwtService(@Value("${application.security.jwt.secret-key}") String secretKey,
+                      @Value("${application.security.jwt.expiration}") long jwtExpiration,
+                      @Value("${application.security.jwt.refresh-token.expiration}") long jwtRefreshExpiration) {
+        this.jwtExpiration = jwtExpiration;
+        this.jwtRefreshExpiration = jwtRefreshExpiration;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
+
+    /**
+     * Parses and verifies a JWT OTP exactly once and returns its claims as an immutable object.
+     * <p>
+     * The signature and expiration are checked by the parser, so an expired or tampered OTP results
+     * in a {@link io.jsonwebtoken.JwtException} instead of a returned value.
+     *
+     * @param token The JWT OTP to verify.
+     * @return The verified claims of the JWT OTP.
+     */
+    public VerifiedToken verify(String token) {
+        final Claims claims = extractAllClaims(token);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("uid", Long.class),
+                claims.get("ver", Integer.class),
+                claims.getIssuedAt(),
+                claims.getExpiration(),
+                claims.get("token_type", String.class),
+                extractAuthorities(claims)
+        );
+    }
 
     /**
      * Extracts the username from a JWT OTP.
@@ -87,12 +121,16 @@ public class JwtService {
                 .map(GrantedAuthority::getAuthority)
                 .toList();
         extraClaims.put("authorities", authorities);
+        if (userDetails instanceof User user) {
+            extraClaims.put("uid", user.getId());
+            extraClaims.put("ver", user.currentTokenVersion());
+        }
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey())
+                .signWith(signInKey)
                 .compact();
     }
 
@@ -104,8 +142,18 @@ public class JwtService {
      * @return True if the OTP is valid for the user details, otherwise false.
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
+    }
+
+    /**
+     * Checks if an already verified OTP is valid for the provided user details.
+     *
+     * @param token        The verified OTP to be validated.
+     * @param userDetails The user details object for validation.
+     * @return True if the OTP is valid for the user details, otherwise false.
+     */
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return userDetails.getUsername().equals(token.subject()) && !token.isExpired();
     }
 
     /**
@@ -146,20 +194,23 @@ public class JwtService {
      * @return the claims extracted from the OTP
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     /**
-     * Retrieves the signing key used for signing the sign-in OTP.
+     * Extracts the authorities claim from the given claims.
      *
-     * @return The signing key used for signing the sign-in OTP.
+     * @param claims the claims from which to extract the authorities
+     * @return the authority names, or an empty list if the claim is absent
      */
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static List<String> extractAuthorities(Claims claims) {
+        if (!(claims.get("authorities") instanceof List<?> authorities)) {
+            return List.of();
+        }
+        return authorities.stream()
+                .map(String::valueOf)
+                .toList();
     }
 }
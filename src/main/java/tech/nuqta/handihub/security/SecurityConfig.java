@@ -49,6 +49,10 @@ public class SecurityConfig {
                                         "/swagger-ui.html"
                                 )
                                     .permitAll()
+                                .requestMatchers("/actuator/health", "/actuator/health/**")
+                                    .permitAll()
+                                .requestMatchers("/actuator/**")
+                                    .hasAuthority("ADMIN")
                                 .anyRequest()
                                     .authenticated()
                 )
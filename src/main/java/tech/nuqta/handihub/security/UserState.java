@@ -0,0 +1,32 @@
+package tech.nuqta.handihub.security;
+
+/**
+ * The UserState record is the small part of a user that request authentication needs to know
+ * beyond what the OTP already carries: whether the account may still be used and which OTP version is current.
+ *
+ * @param id            the user id
+ * @param enabled       whether the account is activated
+ * @param accountLocked whether the account is locked
+ * @param deleted       whether the account is deleted
+ * @param tokenVersion  the current OTP version; OTPs carrying an older version are revoked
+ */
+public record UserState(
+        Long id,
+        boolean enabled,
+        boolean accountLocked,
+        boolean deleted,
+        int tokenVersion
+) {
+
+    /**
+     * Checks whether the given verified OTP may still be used by this user.
+     *
+     * @param token the verified OTP
+     * @return true if the account is usable and the OTP has not been revoked
+     */
+    public boolean accepts(VerifiedToken token) {
+        return enabled && !accountLocked && !deleted
+                && token.tokenVersion() != null
+                && token.tokenVersion() >= tokenVersion;
+    }
+}
@@ -0,0 +1,45 @@
+package tech.nuqta.handihub.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.stereotype.Component;
+import tech.nuqta.handihub.cache.ManagedCacheManager;
+import tech.nuqta.handihub.user.repository.UserRepository;
+
+/**
+ * The UserStateCache class keeps a bounded, short-lived copy of {@link UserState} per user id.
+ * <p>
+ * It lets {@link JwtFilter} reject locked, deleted or revoked users without a database round trip on every request.
+ * Local changes are applied immediately through {@link #invalidate(Long)}; changes made on other nodes
+ * become visible once the entry expires.
+ */
+@Component
+public class UserStateCache {
+    public static final String CACHE_NAME = "user-states";
+
+    private final UserRepository userRepository;
+    private final Cache<Long, UserState> cache;
+
+    public UserStateCache(UserRepository userRepository, ManagedCacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.cache = cacheManager.registerCache(CACHE_NAME);
+    }
+
+    /**
+     * Returns the state of the user with the given id, loading it from the database on a miss.
+     *
+     * @param userId the user id
+     * @return the user state, or null if the user does not exist
+     */
+    public UserState get(Long userId) {
+        return cache.get(userId, id -> userRepository.findStateById(id).orElse(null));
+    }
+
+    /**
+     * Drops the cached state of the given user so that the next request reloads it.
+     *
+     * @param userId the user id
+     */
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+}
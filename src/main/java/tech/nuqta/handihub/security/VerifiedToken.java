@@ -0,0 +1,40 @@
+package tech.nuqta.handihub.security;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The VerifiedToken record holds the claims of a JWT that has already been parsed and signature-checked.
+ * <p>
+ * It is produced once per request by {@link JwtService#verify(String)} so that every later decision
+ * (subject, expiration, token type, authorities) is made without parsing the token again.
+ *
+ * @param subject      the subject (user email) of the token
+ * @param userId       the id of the user, or null for tokens issued before the claim existed
+ * @param tokenVersion the OTP version of the user at issue time, or null for older tokens
+ * @param issuedAt     the time the token was issued
+ * @param expiration   the time the token expires
+ * @param tokenType    the token type, either {@code access} or {@code refresh}
+ * @param authorities  the authorities embedded in the token
+ */
+public record VerifiedToken(
+        String subject,
+        Long userId,
+        Integer tokenVersion,
+        Date issuedAt,
+        Date expiration,
+        String tokenType,
+        List<String> authorities
+) {
+    public VerifiedToken {
+        authorities = authorities == null ? List.of() : List.copyOf(authorities);
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(tokenType);
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
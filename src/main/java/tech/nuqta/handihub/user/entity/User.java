@@ -45,7 +45,7 @@ import java.util.stream.Collectors;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_created_at_id", columnList = "createdAt, id"))
 @EntityListeners(AuditingEntityListener.class)
 public class User implements UserDetails, Principal {
     @Id
@@ -64,6 +64,8 @@ public class User implements UserDetails, Principal {
     private boolean isAdmin = false;
     private boolean accountLocked;
     private boolean enabled;
+    @Column(columnDefinition = "integer default 0")
+    private Integer tokenVersion;
     @ManyToMany(fetch = FetchType.EAGER)
     private List<Role> roles;
     @CreatedDate
@@ -112,4 +114,15 @@ public class User implements UserDetails, Principal {
     public String getFullName() {
         return firstname + " " + lastname;
     }
+
+    public int currentTokenVersion() {
+        return tokenVersion == null ? 0 : tokenVersion;
+    }
+
+    /**
+     * Revokes every OTP issued to this user so far by moving the user to the next OTP version.
+     */
+    public void revokeTokens() {
+        this.tokenVersion = currentTokenVersion() + 1;
+    }
 }
@@ -1,10 +1,14 @@
 package tech.nuqta.handihub.user.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import tech.nuqta.handihub.security.UserState;
 import tech.nuqta.handihub.user.entity.User;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,4 +21,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u FROM User u WHERE u.id = :id AND u.isDeleted = false")
     Optional<User> findById(Long id);
+
+    @Query("SELECT new tech.nuqta.handihub.security.UserState(u.id, u.enabled, u.accountLocked, u.isDeleted, coalesce(u.tokenVersion, 0)) " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserState> findStateById(@Param("id") Long id);
+
+    @Query("SELECT u FROM User u ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findFirstKeysetPage(Pageable limit);
+
+    @Query("SELECT u FROM User u " +
+            "WHERE u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findKeysetPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable limit);
 }
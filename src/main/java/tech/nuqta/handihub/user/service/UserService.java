@@ -1,6 +1,7 @@
 package tech.nuqta.handihub.user.service;
 
 import org.springframework.security.core.Authentication;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.dto.UserDto;
@@ -16,6 +17,7 @@ public interface UserService {
     ResponseMessage deleteUser(Long id, Authentication connectedUser);
     ResponseMessage getUser(Long id, Authentication connectedUser);
     PageResponse<UserDto> getUsers(int page, int size);
+    CursorPageResponse<UserDto> scrollUsers(String cursor, int size);
     ResponseMessage makeVendor(Long id, Authentication connectedUser);
     ResponseMessage updatePassword(UserPasswordUpdateRequest request, Authentication connectedUser);
 }
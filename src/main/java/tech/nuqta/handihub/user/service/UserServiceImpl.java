@@ -11,6 +11,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import tech.nuqta.handihub.common.Cursor;
+import tech.nuqta.handihub.common.CursorPageResponse;
 import tech.nuqta.handihub.common.PageResponse;
 import tech.nuqta.handihub.common.ResponseMessage;
 import tech.nuqta.handihub.enums.RoleName;
@@ -19,6 +21,7 @@ import tech.nuqta.handihub.exception.AppConflictException;
 import tech.nuqta.handihub.exception.OperationNotPermittedException;
 import tech.nuqta.handihub.mapper.UserMapper;
 import tech.nuqta.handihub.role.RoleRepository;
+import tech.nuqta.handihub.security.UserStateCache;
 import tech.nuqta.handihub.dto.UserDto;
 import tech.nuqta.handihub.user.dto.request.UserPasswordUpdateRequest;
 import tech.nuqta.handihub.user.dto.request.UserUpdateRequest;
@@ -39,6 +42,7 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final AuthenticationManager authenticationManager;
     private final PasswordEncoder passwordEncoder;
+    private final UserStateCache userStateCache;
 
     @Override
     public ResponseMessage updateUser(UserUpdateRequest request, Authentication connectedUser) {
@@ -67,7 +71,9 @@ public class UserServiceImpl implements UserService {
         }
         foundUser.setDeleted(true);
         foundUser.setEnabled(false);
+        foundUser.revokeTokens();
         userRepository.save(foundUser);
+        userStateCache.invalidate(foundUser.getId());
         log.info("User with id: {} deleted by user with id: {}", id, user.getId());
         return new ResponseMessage("User deleted successfully");
     }
@@ -99,6 +105,19 @@ public class UserServiceImpl implements UserService {
         );
     }
 
+    @Override
+    public CursorPageResponse<UserDto> scrollUsers(String cursor, int size) {
+        var position = Cursor.decode(cursor);
+        var limit = CursorPageResponse.limit(size);
+        var users = position == null
+                ? userRepository.findFirstKeysetPage(limit)
+                : userRepository.findKeysetPageAfter(position.createdAt(), position.id(), limit);
+        log.info("Keyset page of users retrieved with page size {}", size);
+        return CursorPageResponse.of(users, size, position == null,
+                user -> new Cursor(user.getCreatedAt(), user.getId()),
+                UserMapper::toDtoList);
+    }
+
     @Override
     public ResponseMessage makeVendor(Long id, Authentication connectedUser) {
         var user = ((User) connectedUser.getPrincipal());
@@ -112,7 +131,9 @@ public class UserServiceImpl implements UserService {
 
         if (currentUser.getRoles().stream().noneMatch(role -> role.getId().equals(vendor.getId()))) {
             currentUser.getRoles().add(vendor);
+            currentUser.revokeTokens();
             userRepository.save(currentUser);
+            userStateCache.invalidate(currentUser.getId());
             updateUserAsVendorLog(id, user);
             return new ResponseMessage("User is now a vendor");
         } else {
@@ -142,7 +163,9 @@ public class UserServiceImpl implements UserService {
                 )
         );
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.revokeTokens();
         userRepository.save(user);
+        userStateCache.invalidate(user.getId());
     }
 
     private User getById(Long id) {
@@ -0,0 +1,296 @@
+package tech.nuqta.handihub.cart.store;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.nuqta.handihub.cart.entity.CartEntity;
+import tech.nuqta.handihub.cart.entity.CartLine;
+import tech.nuqta.handihub.cart.repository.CartRepository;
+import tech.nuqta.handihub.enums.CartStatus;
+import tech.nuqta.handihub.exception.AppConflictException;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+import tech.nuqta.handihub.user.entity.User;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Mutates the same cart from many threads, and from two store instances sharing the database, and checks that no
+ * addition is lost, that the persisted totals always match the persisted lines, that a user never gets two carts
+ * and that a cart is checked out only once.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(HotCartStoreConcurrencyTest.AuditConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotCartStoreConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int MUTATIONS_PER_THREAD = 200;
+    private static final int PRODUCTS = 20;
+
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path journalDirectory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = transactionTemplate.execute(status -> {
+            var newUser = new User();
+            newUser.setEmail("shopper-" + System.nanoTime() + "@handihub.uz");
+            entityManager.persist(newUser);
+            return newUser;
+        });
+    }
+
+    @Test
+    void concurrentAdditionsAreNotLost() throws Exception {
+        var store = newStore(journalDirectory.resolve("a"));
+        var flushing = new AtomicBoolean(true);
+        var flusher = Executors.newSingleThreadExecutor();
+        var flushes = flusher.submit(() -> {
+            while (flushing.get()) {
+                store.flush();
+            }
+        });
+
+        run(THREADS, thread -> {
+            var random = ThreadLocalRandom.current();
+            for (int i = 0; i < MUTATIONS_PER_THREAD; i++) {
+                long productId = random.nextLong(1, PRODUCTS + 1);
+                store.updateOrCreate(user, cart -> cart.addQuantity(productId, 1, productId * 100));
+            }
+        });
+        flushing.set(false);
+        flushes.get(30, TimeUnit.SECONDS);
+        flusher.shutdown();
+        store.flush();
+
+        var cart = persistedCart();
+        int expectedQuantity = THREADS * MUTATIONS_PER_THREAD;
+        assertThat(cart.getTotalQuantity()).isEqualTo(expectedQuantity);
+        assertThat(cart.getLines().values().stream().mapToInt(CartLine::quantity).sum()).isEqualTo(expectedQuantity);
+        assertTotalsMatchLines(cart);
+    }
+
+    @Test
+    void evictedCartsKeepTheirMutations() throws Exception {
+        var store = newStore(journalDirectory.resolve("a"), 1);
+        var otherUser = transactionTemplate.execute(status -> {
+            var newUser = new User();
+            newUser.setEmail("other-" + System.nanoTime() + "@handihub.uz");
+            entityManager.persist(newUser);
+            return newUser;
+        });
+        var users = List.of(user, otherUser);
+
+        run(THREADS, thread -> {
+            var shopper = users.get(thread % users.size());
+            for (int i = 0; i < MUTATIONS_PER_THREAD; i++) {
+                store.updateOrCreate(shopper, cart -> cart.addQuantity(1L, 1, 100));
+                if (i % 20 == 0) {
+                    store.flush();
+                }
+            }
+        });
+        store.flush();
+
+        int expectedQuantity = THREADS / users.size() * MUTATIONS_PER_THREAD;
+        for (User shopper : users) {
+            assertThat(store.read(shopper.getId(), HotCart::getTotalQuantity)).isEqualTo(expectedQuantity);
+            assertThat(cartRepository.findWithLinesByUserId(shopper.getId()).orElseThrow().getTotalQuantity())
+                    .isEqualTo(expectedQuantity);
+        }
+    }
+
+    @Test
+    void twoInstancesCreateOneCart() throws Exception {
+        var stores = List.of(newStore(journalDirectory.resolve("a")), newStore(journalDirectory.resolve("b")));
+        var cartIds = new ConcurrentLinkedQueue<Long>();
+
+        run(stores.size(), instance -> cartIds.add(
+                stores.get(instance).updateOrCreate(user, cart -> {
+                    cart.addQuantity(1L, 1, 100);
+                    return cart.getId();
+                })));
+
+        Long carts = transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT count(c) FROM CartEntity c WHERE c.activeUserId = :userId", Long.class)
+                .setParameter("userId", user.getId())
+                .getSingleResult());
+        assertThat(carts).isEqualTo(1);
+        assertThat(cartIds).hasSize(2).containsOnly(cartIds.peek());
+    }
+
+    @Test
+    void conflictingInstancesKeepAllAdditions() throws Exception {
+        var stores = List.of(newStore(journalDirectory.resolve("a")), newStore(journalDirectory.resolve("b")));
+        stores.get(0).updateOrCreate(user, cart -> cart.addQuantity(1L, 1, 100));
+        var expected = new ConcurrentHashMap<Long, Integer>(Map.of(1L, 1));
+
+        run(THREADS, thread -> {
+            var store = stores.get(thread % stores.size());
+            var random = ThreadLocalRandom.current();
+            for (int i = 0; i < MUTATIONS_PER_THREAD; i++) {
+                long productId = random.nextLong(1, PRODUCTS + 1);
+                int quantity = random.nextInt(1, 4);
+                store.update(user, cart -> cart.addQuantity(productId, quantity, productId * 100));
+                expected.merge(productId, quantity, Integer::sum);
+                if (i % 10 == 0) {
+                    store.flush();
+                }
+            }
+        });
+        stores.forEach(HotCartStore::flush);
+
+        var cart = persistedCart();
+        assertThat(cart.getLines()).hasSize(expected.size());
+        expected.forEach((productId, quantity) -> assertThat(cart.getLines().get(productId).quantity())
+                .as("quantity of product %d", productId)
+                .isEqualTo(quantity));
+        assertTotalsMatchLines(cart);
+    }
+
+    @Test
+    void cartIsCheckedOutOnce() throws Exception {
+        var stores = List.of(newStore(journalDirectory.resolve("a")), newStore(journalDirectory.resolve("b")));
+        stores.get(0).updateOrCreate(user, cart -> cart.addQuantity(1L, 2, 100));
+        stores.get(1).read(user.getId(), HotCart::getId);
+        var orders = new AtomicInteger();
+        var rejected = new AtomicInteger();
+
+        run(THREADS, thread -> {
+            try {
+                stores.get(thread % stores.size()).checkout(user, cart -> placeOrder(orders));
+            } catch (ItemNotFoundException | AppConflictException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(orders).hasValue(1);
+        assertThat(rejected).hasValue(THREADS - 1);
+        assertThat(cartRepository.findWithLinesByUserId(user.getId())).isEmpty();
+        for (HotCartStore store : stores) {
+            assertThat(store.read(user.getId(), HotCart::exists)).isFalse();
+            assertThatThrownBy(() -> store.checkout(user, cart -> placeOrder(orders)))
+                    .isInstanceOf(ItemNotFoundException.class);
+        }
+        assertThat(orders).hasValue(1);
+    }
+
+    @Test
+    void additionAfterCheckoutStartsNewCart() throws Exception {
+        var store = newStore(journalDirectory.resolve("a"));
+        store.updateOrCreate(user, cart -> cart.addQuantity(1L, 1, 100));
+        var first = store.checkout(user, cart -> new CheckedOut(cart.getId(), Map.copyOf(cart.getLines())));
+        store.updateOrCreate(user, cart -> cart.addQuantity(2L, 3, 200));
+        store.flush();
+        var second = store.checkout(user, cart -> new CheckedOut(cart.getId(), Map.copyOf(cart.getLines())));
+
+        assertThat(second.cartId()).isNotEqualTo(first.cartId());
+        assertThat(first.lines()).containsOnlyKeys(1L);
+        assertThat(second.lines()).containsOnlyKeys(2L);
+        assertThat(second.lines().get(2L).quantity()).isEqualTo(3);
+        var firstCart = cartRepository.findWithLinesById(first.cartId()).orElseThrow();
+        assertThat(firstCart.getStatus()).isEqualTo(CartStatus.CHECKOUT);
+        assertThat(firstCart.getActiveUserId()).isNull();
+        assertThat(firstCart.getLines()).containsOnlyKeys(1L);
+    }
+
+    /**
+     * Counts an order once its checkout commits; a checkout that loses to a concurrent one is rolled back and retried.
+     */
+    private static Void placeOrder(AtomicInteger orders) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orders.incrementAndGet();
+            }
+        });
+        return null;
+    }
+
+    private HotCartStore newStore(Path journal) {
+        return newStore(journal, 1000);
+    }
+
+    private HotCartStore newStore(Path journal, long maximumSize) {
+        var store = new HotCartStore(cartRepository, transactionManager, maximumSize, Duration.ofMinutes(5), 100, 5,
+                journal, false);
+        store.recover();
+        return store;
+    }
+
+    private CartEntity persistedCart() {
+        return cartRepository.findWithLinesByUserId(user.getId()).orElseThrow();
+    }
+
+    private static void assertTotalsMatchLines(CartEntity cart) {
+        assertThat(cart.getTotalPriceMinor())
+                .isEqualTo(cart.getLines().values().stream().mapToLong(CartLine::totalMinor).sum());
+        assertThat(cart.getTotalQuantity())
+                .isEqualTo(cart.getLines().values().stream().mapToInt(CartLine::quantity).sum());
+    }
+
+    private static void run(int threads, IntConsumer task) throws Exception {
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(threads);
+        var futures = new ArrayList<Future<?>>();
+        for (int thread = 0; thread < threads; thread++) {
+            int index = thread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.accept(index);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private record CheckedOut(Long cartId, Map<Long, CartLine> lines) {
+    }
+
+    @TestConfiguration
+    static class AuditConfig {
+        @Bean
+        AuditorAware<Long> auditorAware() {
+            return () -> Optional.of(1L);
+        }
+    }
+}
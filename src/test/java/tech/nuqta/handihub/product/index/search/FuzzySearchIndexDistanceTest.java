@@ -0,0 +1,74 @@
+package tech.nuqta.handihub.product.index.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the banded edit distance of the typo-tolerant search: a swap of adjacent characters is one edit, a distance
+ * above the band is reported as {@code maxEdits + 1}, and otherwise it agrees with the full distance matrix.
+ */
+class FuzzySearchIndexDistanceTest {
+
+    @Test
+    void adjacentSwapIsOneEdit() {
+        assertThat(FuzzySearchIndex.boundedDistance("vase", "vsae", 1)).isEqualTo(1);
+        assertThat(FuzzySearchIndex.boundedDistance("ceramic", "cearmic", 1)).isEqualTo(1);
+        assertThat(FuzzySearchIndex.boundedDistance("handmade", "hnadmaed", 2)).isEqualTo(2);
+    }
+
+    @Test
+    void distanceBeyondTheBandIsCutOff() {
+        assertThat(FuzzySearchIndex.boundedDistance("vase", "vases", 0)).isEqualTo(1);
+        assertThat(FuzzySearchIndex.boundedDistance("lamp", "lampshade", 2)).isEqualTo(3);
+        assertThat(FuzzySearchIndex.boundedDistance("candle", "bundle", 1)).isEqualTo(2);
+        assertThat(FuzzySearchIndex.boundedDistance("abcdefgh", "hgfedcba", 2)).isEqualTo(3);
+    }
+
+    @Test
+    void agreesWithTheFullMatrixWithinTheBand() {
+        var random = new Random(42);
+        for (int round = 0; round < 20_000; round++) {
+            var a = randomWord(random);
+            var b = randomWord(random);
+            int maxEdits = random.nextInt(3);
+            assertThat(FuzzySearchIndex.boundedDistance(a, b, maxEdits))
+                    .as("%s %s %d", a, b, maxEdits)
+                    .isEqualTo(Math.min(fullDistance(a, b), maxEdits + 1));
+        }
+    }
+
+    private static String randomWord(Random random) {
+        var word = new StringBuilder();
+        int length = 1 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(3)));
+        }
+        return word.toString();
+    }
+
+    /**
+     * The optimal string alignment distance, filling the whole matrix.
+     */
+    private static int fullDistance(String a, String b) {
+        var d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,73 @@
+package tech.nuqta.handihub.product.index.suggest;
+
+import org.junit.jupiter.api.Test;
+import tech.nuqta.handihub.dto.SuggestionDto;
+import tech.nuqta.handihub.product.index.ProductDocument;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the radix trie splits an edge when a phrase diverges inside it and merges an edge back when a removal
+ * leaves a node with one child and no phrase, and that prefixes ending at or inside the changed edges still complete.
+ */
+class ProductSuggesterTest {
+    private final ProductSuggester suggester = new ProductSuggester();
+
+    @Test
+    void insertSplitsTheEdgeWherePhrasesDiverge() {
+        suggester.upsert(document(1L, "Ceramic vase"));
+        assertThat(suggest("ceramic v")).containsExactly("Ceramic vase");
+
+        suggester.upsert(document(2L, "Ceramic cup"));
+
+        assertThat(suggest("cera")).containsExactly("Ceramic cup", "Ceramic vase");
+        assertThat(suggest("ceramic ")).containsExactly("Ceramic cup", "Ceramic vase");
+        assertThat(suggest("ceramic v")).containsExactly("Ceramic vase");
+        assertThat(suggest("ceramic c")).containsExactly("Ceramic cup");
+    }
+
+    @Test
+    void removalMergesTheEdgeOfTheOnlySibling() {
+        suggester.upsert(document(1L, "Ceramic vase"));
+        suggester.upsert(document(2L, "Ceramic cup"));
+
+        suggester.remove(2L);
+
+        assertThat(suggest("ceramic ")).containsExactly("Ceramic vase");
+        assertThat(suggest("ceramic v")).containsExactly("Ceramic vase");
+        assertThat(suggest("ceramic c")).isEmpty();
+
+        suggester.upsert(document(3L, "Ceramic cup"));
+        assertThat(suggest("ceramic c")).containsExactly("Ceramic cup");
+        assertThat(suggest("ceramic v")).containsExactly("Ceramic vase");
+    }
+
+    @Test
+    void prefixCompletesAfterTheShorterPhraseIsRemoved() {
+        suggester.upsert(document(1L, "Tea"));
+        suggester.upsert(document(2L, "Teapot"));
+        assertThat(suggest("tea")).containsExactly("Tea", "Teapot");
+
+        suggester.remove(1L);
+
+        assertThat(suggest("te")).containsExactly("Teapot");
+        assertThat(suggest("tea")).containsExactly("Teapot");
+        assertThat(suggest("teap")).containsExactly("Teapot");
+        assertThat(suggest("teas")).isEmpty();
+    }
+
+    private List<String> suggest(String prefix) {
+        return suggester.suggest(prefix, ProductSuggester.TOP_K).stream()
+                .filter(suggestion -> suggestion.type() == SuggestionType.NAME)
+                .map(SuggestionDto::text)
+                .toList();
+    }
+
+    private static ProductDocument document(Long id, String name) {
+        return new ProductDocument(id, name, "Acme", "SKU-" + id, "", 1L, BigDecimal.TEN,
+                false, false, false, 0, 0);
+    }
+}
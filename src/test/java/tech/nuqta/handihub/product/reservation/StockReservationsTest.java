@@ -0,0 +1,66 @@
+package tech.nuqta.handihub.product.reservation;
+
+import org.junit.jupiter.api.Test;
+import tech.nuqta.handihub.exception.AppBadRequestException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that a renewed hold lasts a full duration from its renewal, and that a batch of holds that runs out of
+ * stock part way leaves the holds it already changed as they were.
+ */
+class StockReservationsTest {
+    private static final long USER = 1L;
+    private static final long OTHER_USER = 2L;
+
+    @Test
+    void renewedHoldExpiresAfterItsNewDuration() {
+        var now = new AtomicLong(10_000);
+        var reservations = new StockReservations(Duration.ofMillis(1000), Duration.ofMillis(10), now::get);
+        reservations.holdAll(USER, Map.of(1L, 3), Map.of(1L, 10));
+        now.addAndGet(500);
+        reservations.holdAll(USER, Map.of(1L, 3), Map.of(1L, 10));
+
+        now.addAndGet(700);
+        reservations.expire();
+        assertThat(reservations.availableToSell(1L, 10)).isEqualTo(7);
+
+        now.addAndGet(290);
+        reservations.expire();
+        assertThat(reservations.availableToSell(1L, 10)).isEqualTo(7);
+
+        now.addAndGet(10);
+        reservations.expire();
+        assertThat(reservations.availableToSell(1L, 10)).isEqualTo(10);
+    }
+
+    @Test
+    void failedHoldAllRestoresThePreviousHolds() {
+        var reservations = new StockReservations(Duration.ofMinutes(15), Duration.ofSeconds(1));
+        reservations.holdAll(USER, Map.of(1L, 2), Map.of(1L, 10));
+        reservations.holdAll(OTHER_USER, Map.of(2L, 4), Map.of(2L, 5));
+        var quantities = new LinkedHashMap<Long, Integer>();
+        quantities.put(1L, 5);
+        quantities.put(3L, 1);
+        quantities.put(2L, 2);
+        quantities.put(4L, 1);
+
+        assertThatThrownBy(() -> reservations.holdAll(USER, quantities, Map.of(1L, 10, 2L, 5, 3L, 1, 4L, 1)))
+                .isInstanceOf(AppBadRequestException.class)
+                .hasMessageContaining("[2]");
+
+        assertThat(reservations.availableToSell(1L, 10)).isEqualTo(8);
+        assertThat(reservations.availableToSell(2L, 5)).isEqualTo(1);
+        assertThat(reservations.availableToSell(3L, 1)).isEqualTo(1);
+        assertThat(reservations.availableToSell(4L, 1)).isEqualTo(1);
+        reservations.releaseAll(USER, List.of(1L));
+        assertThat(reservations.availableToSell(1L, 10)).isEqualTo(10);
+    }
+}
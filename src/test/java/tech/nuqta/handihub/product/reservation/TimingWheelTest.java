@@ -0,0 +1,81 @@
+package tech.nuqta.handihub.product.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Advances a two-level wheel, which covers 4096 ticks, one tick at a time and checks that every timeout expires on
+ * its own tick, whichever level or the overflow it was scheduled in, and that a cancelled one never does.
+ */
+class TimingWheelTest {
+    private static final int LEVELS = 2;
+
+    @Test
+    void deadlinesAcrossLevelBoundariesExpireOnTheirTick() {
+        long now = 4000;
+        var wheel = new TimingWheel<Long>(1, LEVELS, now);
+        var deadlines = List.of(4001L, 4030L, 4031L, 4032L, 4095L, 4096L, 4097L, 4159L, 4160L,
+                8191L, 8192L, 8193L, 12288L, 20000L);
+        deadlines.forEach(deadline -> wheel.schedule(deadline, deadline));
+
+        assertThat(expiriesUntil(wheel, now, 21000)).isEqualTo(byTick(deadlines));
+    }
+
+    @Test
+    void passedDeadlineExpiresOnTheNextTick() {
+        var wheel = new TimingWheel<String>(10, LEVELS, 1000);
+        wheel.schedule("late", 500);
+
+        assertThat(wheel.advance(1009)).isEmpty();
+        assertThat(wheel.advance(1010)).containsExactly("late");
+    }
+
+    @Test
+    void timeoutCancelledAfterCascadeNeverExpires() {
+        var wheel = new TimingWheel<Long>(1, LEVELS, 0);
+        var cancelled = wheel.schedule(200L, 200);
+        wheel.schedule(201L, 201);
+        var overflowCancelled = wheel.schedule(5000L, 5000);
+        wheel.schedule(5001L, 5001);
+
+        assertThat(wheel.advance(192)).isEmpty();
+        cancelled.cancel();
+        assertThat(wheel.advance(4096)).containsExactly(201L);
+        overflowCancelled.cancel();
+        assertThat(wheel.advance(6000)).containsExactly(5001L);
+    }
+
+    @Test
+    void cancellingAnExpiredTimeoutChangesNothing() {
+        var wheel = new TimingWheel<Long>(1, LEVELS, 0);
+        var expired = wheel.schedule(10L, 10);
+        wheel.schedule(20L, 20);
+
+        assertThat(wheel.advance(10)).containsExactly(10L);
+        expired.cancel();
+        assertThat(wheel.advance(20)).containsExactly(20L);
+    }
+
+    private static Map<Long, List<Long>> expiriesUntil(TimingWheel<Long> wheel, long from, long to) {
+        var expiries = new HashMap<Long, List<Long>>();
+        for (long tick = from + 1; tick <= to; tick++) {
+            var expired = wheel.advance(tick);
+            if (!expired.isEmpty()) {
+                expiries.put(tick, expired);
+            }
+        }
+        return expiries;
+    }
+
+    private static Map<Long, List<Long>> byTick(List<Long> deadlines) {
+        var expected = new HashMap<Long, List<Long>>();
+        deadlines.forEach(deadline -> expected.computeIfAbsent(deadline, tick -> new ArrayList<>()).add(deadline));
+        return expected;
+    }
+}
@@ -0,0 +1,73 @@
+package tech.nuqta.handihub.product.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that the sketch never underestimates, stays within its error bound for nearly every key, and that
+ * subtracting a sketch takes exactly its counts back out.
+ */
+class CountMinSketchTest {
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 256;
+
+    @Test
+    void estimatesNeverUnderestimateAndRarelyExceedTheBound() {
+        var sketch = new CountMinSketch(DEPTH, WIDTH);
+        var counts = new HashMap<Long, Integer>();
+        var random = new Random(11);
+        long total = 0;
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1 + random.nextInt(2_000);
+            int count = 1 + random.nextInt(5);
+            sketch.add(key, count);
+            counts.merge(key, count, Integer::sum);
+            total += count;
+        }
+
+        double bound = Math.E / WIDTH * total;
+        int overBound = 0;
+        for (var entry : counts.entrySet()) {
+            int estimate = sketch.estimate(entry.getKey());
+            assertThat(estimate).isGreaterThanOrEqualTo(entry.getValue());
+            if (estimate - entry.getValue() > bound) {
+                overBound++;
+            }
+        }
+        // The bound holds with probability 1 - e^-4, about 98%
+        assertThat(overBound).isLessThan(counts.size() / 20);
+    }
+
+    @Test
+    void subtractingASketchRemovesExactlyItsCounts() {
+        var window = new CountMinSketch(DEPTH, WIDTH);
+        var bucket = new CountMinSketch(DEPTH, WIDTH);
+        for (long key = 1; key <= 1_000; key++) {
+            window.add(key, (int) (key % 7) + 1);
+        }
+        var before = new int[1_001];
+        for (int key = 1; key <= 1_000; key++) {
+            before[key] = window.estimate(key);
+        }
+        for (long key = 1; key <= 1_000; key += 3) {
+            window.add(key, 10);
+            bucket.add(key, 10);
+        }
+
+        window.subtract(bucket);
+
+        for (int key = 1; key <= 1_000; key++) {
+            assertThat(window.estimate(key)).isEqualTo(before[key]);
+        }
+    }
+
+    @Test
+    void widthMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new CountMinSketch(DEPTH, 1000)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,46 @@
+package tech.nuqta.handihub.product.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that a key leaves the heavy hitters exactly when its last bucket slides out of the window, and that a key
+ * only displaces the lightest candidate once its estimate exceeds it.
+ */
+class SlidingHeavyHittersTest {
+    private static final long MINUTE = 60_000;
+    private static final long START = 1_000 * MINUTE;
+
+    @Test
+    void keysLeaveOnceTheirBucketsSlideOut() {
+        var hitters = new SlidingHeavyHitters(TrendingWindow.HOUR, 4, 1024, 10, START);
+        hitters.add(1L, 5, START);
+        hitters.add(2L, 3, START + 30 * MINUTE);
+        assertThat(hitters.top()).containsExactly(Map.entry(1L, 5), Map.entry(2L, 3));
+
+        hitters.advance(START + 59 * MINUTE);
+        assertThat(hitters.top()).containsExactly(Map.entry(1L, 5), Map.entry(2L, 3));
+
+        assertThat(hitters.advance(START + 60 * MINUTE)).isTrue();
+        assertThat(hitters.top()).containsExactly(Map.entry(2L, 3));
+
+        hitters.advance(START + 3 * 60 * MINUTE);
+        assertThat(hitters.top()).isEmpty();
+    }
+
+    @Test
+    void keyDisplacesTheLightestCandidateOnlyWhenHeavier() {
+        var hitters = new SlidingHeavyHitters(TrendingWindow.HOUR, 4, 1024, 2, START);
+        hitters.add(1L, 1, START);
+        hitters.add(2L, 2, START);
+
+        hitters.add(3L, 1, START);
+        assertThat(hitters.top()).containsExactly(Map.entry(2L, 2), Map.entry(1L, 1));
+
+        hitters.add(3L, 1, START);
+        assertThat(hitters.top()).containsExactly(Map.entry(2L, 2), Map.entry(3L, 2));
+    }
+}
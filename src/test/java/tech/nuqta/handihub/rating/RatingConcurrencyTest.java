@@ -0,0 +1,223 @@
+package tech.nuqta.handihub.rating;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tech.nuqta.handihub.category.entity.CategoryEntity;
+import tech.nuqta.handihub.category.tree.CategoryTreeHolder;
+import tech.nuqta.handihub.exception.ItemNotFoundException;
+import tech.nuqta.handihub.file.ImageUploadService;
+import tech.nuqta.handihub.product.cache.ProductDetailCache;
+import tech.nuqta.handihub.product.dto.request.ProductUpdateRequest;
+import tech.nuqta.handihub.product.entity.ProductEntity;
+import tech.nuqta.handihub.product.index.facet.ProductFacetIndex;
+import tech.nuqta.handihub.product.index.search.Bm25SearchIndex;
+import tech.nuqta.handihub.product.index.search.FuzzySearchIndex;
+import tech.nuqta.handihub.product.index.suggest.ProductSuggester;
+import tech.nuqta.handihub.product.related.RelatedProducts;
+import tech.nuqta.handihub.product.repository.ProductStockRepository;
+import tech.nuqta.handihub.product.reservation.StockReservations;
+import tech.nuqta.handihub.product.service.ProductsService;
+import tech.nuqta.handihub.product.service.ProductsServiceImpl;
+import tech.nuqta.handihub.product.trending.TrendingProducts;
+import tech.nuqta.handihub.rating.leaderboard.TopRatedLeaderboard;
+import tech.nuqta.handihub.user.entity.User;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rates the same product from many threads at once, also while its owner edits it, and checks that no rating is lost
+ * in the product aggregates.
+ */
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import({RatingServiceImpl.class, ProductsServiceImpl.class, ProductStockRepository.class, TopRatedLeaderboard.class,
+        CategoryTreeHolder.class, RatingConcurrencyTest.AuditConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RatingConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int RATINGS_PER_THREAD = 50;
+
+    @Autowired
+    private RatingService ratingService;
+    @Autowired
+    private RatingRepository ratingRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ProductsService productsService;
+    @MockBean
+    private ImageUploadService imageUploadService;
+    @MockBean
+    private ProductDetailCache productDetailCache;
+    @MockBean
+    private Bm25SearchIndex searchIndex;
+    @MockBean
+    private FuzzySearchIndex fuzzySearchIndex;
+    @MockBean
+    private ProductFacetIndex facetIndex;
+    @MockBean
+    private ProductSuggester suggester;
+    @MockBean
+    private RelatedProducts relatedProducts;
+    @MockBean
+    private TrendingProducts trendingProducts;
+    @MockBean
+    private StockReservations stockReservations;
+
+    private Authentication connectedUser;
+    private Long productId;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            var user = new User();
+            user.setEmail("rater-" + System.nanoTime() + "@handihub.uz");
+            entityManager.persist(user);
+            var category = new CategoryEntity();
+            category.setName("Pottery");
+            entityManager.persist(category);
+            var product = new ProductEntity();
+            product.setName("Vase");
+            product.setEnabled(true);
+            product.setQuantity(10);
+            product.setUser(user);
+            product.setCategory(category);
+            entityManager.persist(product);
+            connectedUser = new UsernamePasswordAuthenticationToken(user, null, List.of());
+            productId = product.getId();
+            categoryId = category.getId();
+        });
+    }
+
+    @Test
+    void concurrentRatingsAreNotLost() throws Exception {
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(THREADS);
+        var futures = new ArrayList<Future<?>>();
+        long expectedSum = 0;
+        var expectedStarCounts = new Integer[]{0, 0, 0, 0, 0};
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < RATINGS_PER_THREAD; i++) {
+                int value = (t + i) % 5 + 1;
+                expectedSum += value;
+                expectedStarCounts[value - 1]++;
+            }
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RATINGS_PER_THREAD; i++) {
+                    ratingService.rateProduct(new RateRequest(productId, (thread + i) % 5 + 1, null), connectedUser);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        var product = transactionTemplate.execute(status -> entityManager.find(ProductEntity.class, productId));
+        assertThat(product.getRatingCount()).isEqualTo(THREADS * RATINGS_PER_THREAD);
+        assertThat(product.getRatingSum()).isEqualTo(expectedSum);
+        assertThat(product.getAverageRating()).isEqualTo((double) expectedSum / (THREADS * RATINGS_PER_THREAD));
+        assertThat(ratingService.getAverageRating(productId)).isEqualTo(product.getAverageRating());
+        assertThat(ratingService.getRatingHistogram(productId).starCounts()).containsExactly(expectedStarCounts);
+    }
+
+    @Test
+    void productEditsDoNotOverwriteRatings() throws Exception {
+        when(imageUploadService.store(any())).thenReturn("vase.png");
+        var user = (User) connectedUser.getPrincipal();
+        var start = new CountDownLatch(1);
+        var rating = new AtomicBoolean(true);
+        var executor = Executors.newFixedThreadPool(THREADS);
+        var editors = new ArrayList<Future<?>>();
+        for (int t = 0; t < THREADS / 2; t++) {
+            int thread = t;
+            editors.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; rating.get(); i++) {
+                    if ((thread + i) % 2 == 0) {
+                        productsService.updateProduct(new ProductUpdateRequest(productId, "Vase " + i, "Blue vase",
+                                "VASE-1", "Handihub", 1.0, "10x10x20", false, true, false,
+                                BigDecimal.TEN, 10, user.getId(), categoryId), connectedUser);
+                    } else {
+                        // a request holds the session open while adding images
+                        transactionTemplate.execute(status ->
+                                productsService.addImages(productId, new MultipartFile[]{null}, connectedUser));
+                    }
+                }
+                return null;
+            }));
+        }
+        var raters = new ArrayList<Future<?>>();
+        for (int t = 0; t < THREADS / 2; t++) {
+            raters.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < RATINGS_PER_THREAD; i++) {
+                    ratingService.rateProduct(new RateRequest(productId, 5, null), connectedUser);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var future : raters) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        rating.set(false);
+        for (var future : editors) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        var product = transactionTemplate.execute(status -> entityManager.find(ProductEntity.class, productId));
+        int expectedCount = THREADS / 2 * RATINGS_PER_THREAD;
+        assertThat(product.getRatingCount()).isEqualTo(expectedCount);
+        assertThat(product.getRatingSum()).isEqualTo(5L * expectedCount);
+        assertThat(product.getRating5Count()).isEqualTo(expectedCount);
+    }
+
+    @Test
+    void ratingAnUnavailableProductStoresNothing() {
+        long ratingsBefore = ratingRepository.count();
+
+        assertThatThrownBy(() -> ratingService.rateProduct(new RateRequest(-1L, 5, null), connectedUser))
+                .isInstanceOf(ItemNotFoundException.class);
+        assertThat(ratingRepository.count()).isEqualTo(ratingsBefore);
+    }
+
+    @TestConfiguration
+    static class AuditConfig {
+        @Bean
+        AuditorAware<Long> auditorAware() {
+            return () -> Optional.of(1L);
+        }
+    }
+}